@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.formatting.http.HttpFormatUtils;
+import com.epam.reportportal.formatting.http.HttpRequestFormatter;
+import com.epam.reportportal.formatting.http.HttpResponseFormatter;
+import com.epam.reportportal.formatting.http.converters.DefaultCookieConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultFormParamConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultHttpHeaderConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultUriConverter;
+import com.epam.reportportal.okhttp3.support.HttpEntityFactory;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compares header and cookie partitioning of bodiless requests and responses with the former implementation, which
+ * walked headers twice with streams. Compare <code>gc.alloc.rate.norm</code> of <code>streams*</code> and
+ * <code>indexed*</code> benchmarks to see allocation per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HeadersBenchmark {
+
+	@Param({ "1", "10", "50" })
+	public int headerCount;
+
+	private Request request;
+	private Response response;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Headers headers = HttpEntityFactoryBenchmark.headers(headerCount);
+		request = new Request.Builder().url("http://localhost:8080/api/v1/items")
+				.headers(headers.newBuilder().add("Cookie", "session=abc; tz=Europe%2FMinsk").build())
+				.build();
+		response = new Response.Builder().request(request)
+				.protocol(Protocol.HTTP_1_1)
+				.code(204)
+				.message("No Content")
+				.headers(headers.newBuilder().add("Set-Cookie", "session=abc; path=/; secure; HttpOnly").build())
+				.build();
+	}
+
+	@Benchmark
+	public HttpRequestFormatter streamsRequest() {
+		HttpRequestFormatter.Builder builder = new HttpRequestFormatter.Builder(request.method(), request.url().toString());
+		StreamSupport.stream(request.headers().spliterator(), false)
+				.filter(h -> !HttpFormatUtils.isCookie(h.getFirst()))
+				.forEach(h -> builder.addHeader(h.getFirst(), h.getSecond()));
+		StreamSupport.stream(request.headers().spliterator(), false)
+				.filter(h -> HttpFormatUtils.isCookie(h.getFirst()))
+				.flatMap(h -> HttpFormatUtils.toKeyValue(h.getSecond()))
+				.forEach(h -> builder.addCookie(h.getKey(), h.getValue()));
+		builder.uriConverter(DefaultUriConverter.INSTANCE)
+				.headerConverter(DefaultHttpHeaderConverter.INSTANCE)
+				.cookieConverter(DefaultCookieConverter.INSTANCE)
+				.paramConverter(DefaultFormParamConverter.INSTANCE)
+				.prettifiers(Collections.emptyMap());
+		return builder.build();
+	}
+
+	@Benchmark
+	public HttpRequestFormatter indexedRequest() {
+		return HttpEntityFactory.createHttpRequestFormatter(
+				request,
+				DefaultUriConverter.INSTANCE,
+				DefaultHttpHeaderConverter.INSTANCE,
+				DefaultCookieConverter.INSTANCE,
+				DefaultFormParamConverter.INSTANCE,
+				Collections.emptyMap(),
+				DefaultHttpHeaderConverter.INSTANCE,
+				Collections.emptyMap()
+		);
+	}
+
+	@Benchmark
+	public HttpResponseFormatter streamsResponse() {
+		HttpResponseFormatter.Builder builder = new HttpResponseFormatter.Builder(response.code(), response.message());
+		StreamSupport.stream(response.headers().spliterator(), false)
+				.filter(h -> !HttpFormatUtils.isSetCookie(h.getFirst()))
+				.forEach(h -> builder.addHeader(h.getFirst(), h.getSecond()));
+		StreamSupport.stream(response.headers().spliterator(), false)
+				.filter(h -> HttpFormatUtils.isSetCookie(h.getFirst()))
+				.forEach(h -> builder.addCookie(HttpFormatUtils.toCookie(h.getSecond())));
+		builder.headerConverter(DefaultHttpHeaderConverter.INSTANCE)
+				.cookieConverter(DefaultCookieConverter.INSTANCE)
+				.prettifiers(Collections.emptyMap());
+		return builder.build();
+	}
+
+	@Benchmark
+	public HttpResponseFormatter indexedResponse() {
+		return HttpEntityFactory.createHttpResponseFormatter(
+				response,
+				DefaultHttpHeaderConverter.INSTANCE,
+				DefaultCookieConverter.INSTANCE,
+				Collections.emptyMap(),
+				Collections.emptyMap()
+		);
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.formatting.http.HttpRequestFormatter;
+import com.epam.reportportal.formatting.http.HttpResponseFormatter;
+import com.epam.reportportal.formatting.http.converters.DefaultCookieConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultFormParamConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultHttpHeaderConverter;
+import com.epam.reportportal.formatting.http.converters.DefaultUriConverter;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.okhttp3.support.BodyCapture;
+import com.epam.reportportal.okhttp3.support.HttpEntityFactory;
+import okhttp3.*;
+import okio.Buffer;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks request and response formatter creation in isolation, across body sizes, body types and header counts.
+ * Run with <code>./gradlew jmh -Pjmh.includes=HttpEntityFactoryBenchmark</code>, allocation rate is reported by the GC
+ * profiler as <code>gc.alloc.rate.norm</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HttpEntityFactoryBenchmark {
+
+	private static final String URL = "http://localhost:8080/api/v1/items?page=1&size=20";
+
+	@Param({ "1024", "1048576", "104857600" })
+	public int bodySize;
+
+	@Param({ "JSON", "FORM", "MULTIPART", "IMAGE" })
+	public String bodyType;
+
+	@Param({ "1", "10", "50" })
+	public int headerCount;
+
+	private ReportPortalOkHttp3LoggingInterceptor config;
+	private Request request;
+	private Response response;
+	private ByteString responseBytes;
+
+	static String json(int size) {
+		StringBuilder builder = new StringBuilder(size + 64).append("{\"items\": [");
+		int i = 0;
+		while (builder.length() < size) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append("{\"id\": ").append(i).append(", \"name\": \"item_").append(i).append("\", \"active\": true}");
+			i++;
+		}
+		return builder.append("]}").toString();
+	}
+
+	static byte[] binary(int size) {
+		byte[] data = new byte[size];
+		new Random(42).nextBytes(data);
+		return data;
+	}
+
+	static Headers headers(int count) {
+		Headers.Builder builder = new Headers.Builder();
+		for (int i = 0; i < count; i++) {
+			builder.add("X-Header-" + i, "value_" + i);
+		}
+		return builder.build();
+	}
+
+	private RequestBody createBody() {
+		switch (bodyType) {
+			case "JSON":
+				return RequestBody.create(json(bodySize), MediaType.get("application/json; charset=utf-8"));
+			case "FORM":
+				FormBody.Builder form = new FormBody.Builder();
+				int fieldSize = Math.min(bodySize, 1024);
+				String value = json(fieldSize);
+				for (int i = 0; i * fieldSize < bodySize; i++) {
+					form.add("field_" + i, value);
+				}
+				return form.build();
+			case "MULTIPART":
+				return new MultipartBody.Builder().setType(MultipartBody.FORM)
+						.addFormDataPart("meta", null, RequestBody.create(json(bodySize / 2), MediaType.get("application/json")))
+						.addFormDataPart("file", "image.jpg", RequestBody.create(binary(bodySize / 2), MediaType.get("image/jpeg")))
+						.build();
+			default:
+				return RequestBody.create(binary(bodySize), MediaType.get("image/jpeg"));
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		config = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO);
+		Headers headers = headers(headerCount).newBuilder().add("Cookie", "session=abc; tz=Europe%2FMinsk").build();
+		RequestBody body = createBody();
+		request = new Request.Builder().url(URL).headers(headers).post(body).build();
+		try (Buffer buffer = new Buffer()) {
+			body.writeTo(buffer);
+			responseBytes = buffer.readByteString();
+		}
+		Headers responseHeaders = headers(headerCount).newBuilder()
+				.add("Content-Type", String.valueOf(body.contentType()))
+				.add("Set-Cookie", "session=abc; path=/; secure; HttpOnly")
+				.build();
+		response = new Response.Builder().request(request)
+				.protocol(Protocol.HTTP_1_1)
+				.code(200)
+				.message("OK")
+				.headers(responseHeaders)
+				.body(ResponseBody.create(new byte[0], body.contentType()))
+				.build();
+	}
+
+	@Benchmark
+	public HttpRequestFormatter createHttpRequestFormatter() {
+		return HttpEntityFactory.createHttpRequestFormatter(
+				request,
+				DefaultUriConverter.INSTANCE,
+				DefaultHttpHeaderConverter.INSTANCE,
+				DefaultCookieConverter.INSTANCE,
+				DefaultFormParamConverter.INSTANCE,
+				config.getContentPrettifiers(),
+				DefaultHttpHeaderConverter.INSTANCE,
+				config.getBodyTypeMap()
+		);
+	}
+
+	@Benchmark
+	public HttpResponseFormatter createHttpResponseFormatter() {
+		BodyCapture capture = new BodyCapture();
+		try (Buffer buffer = new Buffer()) {
+			buffer.write(responseBytes);
+			capture.write(buffer, 0, buffer.size());
+		}
+		return HttpEntityFactory.createHttpResponseFormatter(
+				response,
+				capture,
+				DefaultHttpHeaderConverter.INSTANCE,
+				DefaultCookieConverter.INSTANCE,
+				config.getContentPrettifiers(),
+				config.getBodyTypeMap()
+		);
+	}
+}
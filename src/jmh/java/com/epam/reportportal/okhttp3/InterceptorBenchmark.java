@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.listeners.LogLevel;
+import okhttp3.*;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+import org.openjdk.jmh.annotations.*;
+
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of {@link ReportPortalOkHttp3LoggingInterceptor#intercept} against a local
+ * {@link MockWebServer}. The <code>none</code> mode gives a baseline of the same call without the interceptor. There is
+ * no Report Portal launch running, so the measured overhead is capture and formatting, without the log upload.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InterceptorBenchmark {
+
+	@Param({ "1024", "1048576" })
+	public int bodySize;
+
+	@Param({ "none", "interceptor" })
+	public String mode;
+
+	private MockWebServer server;
+	private OkHttpClient client;
+	private HttpUrl url;
+	private RequestBody requestBody;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		ByteString body = ByteString.encodeUtf8(HttpEntityFactoryBenchmark.json(bodySize));
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Nonnull
+			@Override
+			public MockResponse dispatch(@Nonnull RecordedRequest recordedRequest) {
+				return new MockResponse().setHeader("Content-Type", "application/json").setBody(new Buffer().write(body));
+			}
+		});
+		server.start();
+		url = server.url("/api/v1/items");
+		requestBody = RequestBody.create(body, MediaType.get("application/json"));
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		if ("interceptor".equals(mode)) {
+			builder.addInterceptor(new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO));
+		}
+		client = builder.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+		server.shutdown();
+	}
+
+	@Benchmark
+	public long intercept() throws IOException, InterruptedException {
+		Request request = new Request.Builder().url(url).header("Accept", "application/json").post(requestBody).build();
+		long size;
+		try (Response response = client.newCall(request).execute()) {
+			size = response.body().source().readAll(Okio.blackhole());
+		}
+		// MockWebServer keeps every recorded request, drain them to keep the heap flat
+		server.takeRequest(0, TimeUnit.MILLISECONDS);
+		return size;
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.okhttp3.support.CallTimings;
+import com.epam.reportportal.service.LoggingContext;
+import okhttp3.*;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OkHttp event listener factory which records DNS, connect, TLS, time to first byte and total duration of each call,
+ * along with protocol, remote address, TLS version, cipher suite and reuse of the connection it used.
+ * Pass the same instance to {@link OkHttpClient.Builder#eventListenerFactory} and
+ * {@link ReportPortalOkHttp3LoggingInterceptor#setEventListenerFactory}, and the timings are attached to response log
+ * entries:
+ * <pre>
+ * ReportPortalOkHttp3EventListenerFactory timings = new ReportPortalOkHttp3EventListenerFactory();
+ * OkHttpClient client = new OkHttpClient.Builder().eventListenerFactory(timings)
+ *         .addInterceptor(new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setEventListenerFactory(timings))
+ *         .build();
+ * </pre>
+ * Timings are looked up by {@link Call} instance. A call is registered when it starts and forgotten as soon as it ends
+ * or fails, so the lookup table holds only calls in flight, and calls which are created or cloned but never executed
+ * are not held at all.
+ * <p>
+ * The factory also remembers the ReportPortal logging context of the thread which starts each call. OkHttp runs
+ * interceptors of {@link Call#enqueue} calls on its dispatcher threads, which know nothing about the test, so the
+ * interceptor binds entries of such calls to the remembered context. Along with an
+ * {@link com.epam.reportportal.okhttp3.support.AsyncLogEmitter} this keeps dispatcher threads busy only with body
+ * capture:
+ * <pre>
+ * ReportPortalOkHttp3EventListenerFactory calls = new ReportPortalOkHttp3EventListenerFactory();
+ * OkHttpClient client = new OkHttpClient.Builder().eventListenerFactory(calls)
+ *         .addInterceptor(new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setEventListenerFactory(calls)
+ *                 .setAsyncEmitter(new AsyncLogEmitter()))
+ *         .build();
+ * </pre>
+ */
+public class ReportPortalOkHttp3EventListenerFactory implements EventListener.Factory {
+
+	private final Map<Call, CallState> calls = new ConcurrentHashMap<>();
+	private final EventListener.Factory delegate;
+
+	/**
+	 * @param delegate event listener factory to notify along with this one, e.g. one which was already set to the client
+	 */
+	public ReportPortalOkHttp3EventListenerFactory(@Nonnull EventListener.Factory delegate) {
+		this.delegate = delegate;
+	}
+
+	public ReportPortalOkHttp3EventListenerFactory() {
+		this(call -> EventListener.NONE);
+	}
+
+	/**
+	 * @param call call to get timings of
+	 * @return timings of the call or <code>null</code> if the call was not created by a client with this factory, has
+	 * not started or has already ended
+	 */
+	@Nullable
+	public CallTimings getTimings(@Nonnull Call call) {
+		CallState state = calls.get(call);
+		return state == null ? null : state.timings;
+	}
+
+	/**
+	 * @param call call to get logging context of
+	 * @return logging context of the thread which started the call, or <code>null</code> if there was none, the call
+	 * was not created by a client with this factory, has not started or has already ended
+	 */
+	@Nullable
+	public LoggingContext getContext(@Nonnull Call call) {
+		CallState state = calls.get(call);
+		return state == null ? null : state.context;
+	}
+
+	/**
+	 * @return number of calls in flight
+	 */
+	public int size() {
+		return calls.size();
+	}
+
+	@Nonnull
+	@Override
+	public EventListener create(@Nonnull Call call) {
+		return new TimingListener(call, new CallTimings(), delegate.create(call));
+	}
+
+	private static class CallState {
+		private final CallTimings timings;
+		private final LoggingContext context;
+
+		CallState(@Nonnull CallTimings timings, @Nullable LoggingContext context) {
+			this.timings = timings;
+			this.context = context;
+		}
+	}
+
+	private class TimingListener extends EventListener {
+		private final Call call;
+		private final CallTimings timings;
+		private final EventListener delegate;
+
+		TimingListener(@Nonnull Call call, @Nonnull CallTimings timings, @Nonnull EventListener delegate) {
+			this.call = call;
+			this.timings = timings;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void callStart(@Nonnull Call call) {
+			timings.callStart();
+			// Called by Call.execute and Call.enqueue, so this is the thread which started the call
+			calls.put(this.call, new CallState(timings, LoggingContext.context()));
+			delegate.callStart(call);
+		}
+
+		@Override
+		public void dnsStart(@Nonnull Call call, @Nonnull String domainName) {
+			timings.dnsStart();
+			delegate.dnsStart(call, domainName);
+		}
+
+		@Override
+		public void dnsEnd(@Nonnull Call call, @Nonnull String domainName, @Nonnull List<InetAddress> inetAddressList) {
+			timings.dnsEnd();
+			delegate.dnsEnd(call, domainName, inetAddressList);
+		}
+
+		@Override
+		public void connectStart(@Nonnull Call call, @Nonnull InetSocketAddress inetSocketAddress, @Nonnull Proxy proxy) {
+			timings.connectStart();
+			delegate.connectStart(call, inetSocketAddress, proxy);
+		}
+
+		@Override
+		public void secureConnectStart(@Nonnull Call call) {
+			timings.secureConnectStart();
+			delegate.secureConnectStart(call);
+		}
+
+		@Override
+		public void secureConnectEnd(@Nonnull Call call, @Nullable Handshake handshake) {
+			timings.secureConnectEnd();
+			delegate.secureConnectEnd(call, handshake);
+		}
+
+		@Override
+		public void connectEnd(@Nonnull Call call, @Nonnull InetSocketAddress inetSocketAddress, @Nonnull Proxy proxy,
+				@Nullable Protocol protocol) {
+			timings.connectEnd();
+			delegate.connectEnd(call, inetSocketAddress, proxy, protocol);
+		}
+
+		@Override
+		public void connectFailed(@Nonnull Call call, @Nonnull InetSocketAddress inetSocketAddress, @Nonnull Proxy proxy,
+				@Nullable Protocol protocol, @Nonnull IOException ioe) {
+			timings.connectEnd();
+			delegate.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+		}
+
+		@Override
+		public void connectionAcquired(@Nonnull Call call, @Nonnull Connection connection) {
+			timings.connectionAcquired(connection);
+			delegate.connectionAcquired(call, connection);
+		}
+
+		@Override
+		public void connectionReleased(@Nonnull Call call, @Nonnull Connection connection) {
+			delegate.connectionReleased(call, connection);
+		}
+
+		@Override
+		public void requestHeadersStart(@Nonnull Call call) {
+			timings.requestStart();
+			delegate.requestHeadersStart(call);
+		}
+
+		@Override
+		public void requestHeadersEnd(@Nonnull Call call, @Nonnull Request request) {
+			delegate.requestHeadersEnd(call, request);
+		}
+
+		@Override
+		public void requestBodyStart(@Nonnull Call call) {
+			delegate.requestBodyStart(call);
+		}
+
+		@Override
+		public void requestBodyEnd(@Nonnull Call call, long byteCount) {
+			delegate.requestBodyEnd(call, byteCount);
+		}
+
+		@Override
+		public void requestFailed(@Nonnull Call call, @Nonnull IOException ioe) {
+			delegate.requestFailed(call, ioe);
+		}
+
+		@Override
+		public void responseHeadersStart(@Nonnull Call call) {
+			timings.responseStart();
+			delegate.responseHeadersStart(call);
+		}
+
+		@Override
+		public void responseHeadersEnd(@Nonnull Call call, @Nonnull Response response) {
+			delegate.responseHeadersEnd(call, response);
+		}
+
+		@Override
+		public void responseBodyStart(@Nonnull Call call) {
+			delegate.responseBodyStart(call);
+		}
+
+		@Override
+		public void responseBodyEnd(@Nonnull Call call, long byteCount) {
+			delegate.responseBodyEnd(call, byteCount);
+		}
+
+		@Override
+		public void responseFailed(@Nonnull Call call, @Nonnull IOException ioe) {
+			delegate.responseFailed(call, ioe);
+		}
+
+		@Override
+		public void callEnd(@Nonnull Call call) {
+			timings.callEnd();
+			calls.remove(this.call);
+			delegate.callEnd(call);
+		}
+
+		@Override
+		public void callFailed(@Nonnull Call call, @Nonnull IOException ioe) {
+			timings.callEnd();
+			calls.remove(this.call);
+			delegate.callFailed(call, ioe);
+		}
+
+		@Override
+		public void canceled(@Nonnull Call call) {
+			delegate.canceled(call);
+		}
+
+		@Override
+		public void proxySelectStart(@Nonnull Call call, @Nonnull HttpUrl url) {
+			delegate.proxySelectStart(call, url);
+		}
+
+		@Override
+		public void proxySelectEnd(@Nonnull Call call, @Nonnull HttpUrl url, @Nonnull List<Proxy> proxies) {
+			delegate.proxySelectEnd(call, url, proxies);
+		}
+
+		@Override
+		public void satisfactionFailure(@Nonnull Call call, @Nonnull Response response) {
+			delegate.satisfactionFailure(call, response);
+		}
+
+		@Override
+		public void cacheHit(@Nonnull Call call, @Nonnull Response response) {
+			delegate.cacheHit(call, response);
+		}
+
+		@Override
+		public void cacheMiss(@Nonnull Call call) {
+			delegate.cacheMiss(call);
+		}
+
+		@Override
+		public void cacheConditionalHit(@Nonnull Call call, @Nonnull Response cachedResponse) {
+			delegate.cacheConditionalHit(call, cachedResponse);
+		}
+	}
+}
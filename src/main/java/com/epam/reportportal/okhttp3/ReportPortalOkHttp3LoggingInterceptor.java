@@ -17,29 +17,94 @@
 package com.epam.reportportal.okhttp3;
 
 import com.epam.reportportal.formatting.AbstractHttpFormatter;
+import com.epam.reportportal.formatting.http.Constants;
+import com.epam.reportportal.formatting.http.HttpFormatter;
 import com.epam.reportportal.formatting.http.converters.DefaultCookieConverter;
 import com.epam.reportportal.formatting.http.converters.DefaultFormParamConverter;
 import com.epam.reportportal.formatting.http.converters.DefaultHttpHeaderConverter;
 import com.epam.reportportal.formatting.http.converters.DefaultUriConverter;
+import com.epam.reportportal.formatting.http.entities.BodyType;
 import com.epam.reportportal.formatting.http.entities.Cookie;
 import com.epam.reportportal.formatting.http.entities.Header;
 import com.epam.reportportal.formatting.http.entities.Param;
 import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.okhttp3.support.AsyncLogEmitter;
+import com.epam.reportportal.okhttp3.support.AttachmentDeduplicator;
+import com.epam.reportportal.okhttp3.support.BodyCapture;
+import com.epam.reportportal.okhttp3.support.CallTimings;
+import com.epam.reportportal.okhttp3.support.DecodingBodyCapture;
 import com.epam.reportportal.okhttp3.support.HttpEntityFactory;
+import com.epam.reportportal.okhttp3.support.InMemoryInterceptorMetrics;
+import com.epam.reportportal.okhttp3.support.InterceptorMetrics;
+import com.epam.reportportal.okhttp3.support.LogRequestFactory;
+import com.epam.reportportal.okhttp3.support.MediaTypeCache;
+import com.epam.reportportal.okhttp3.support.PartPolicy;
+import com.epam.reportportal.okhttp3.support.PrettifierCache;
+import com.epam.reportportal.okhttp3.support.PrettifierGuard;
+import com.epam.reportportal.okhttp3.support.RequestFilter;
+import com.epam.reportportal.okhttp3.support.RequestMatcher;
+import com.epam.reportportal.okhttp3.support.ResponseFilters;
+import com.epam.reportportal.okhttp3.support.RouteTable;
+import com.epam.reportportal.okhttp3.support.SamplingPolicy;
+import com.epam.reportportal.okhttp3.support.StreamingResponseBody;
+import com.epam.reportportal.okhttp3.support.TeeRequestBody;
+import com.epam.reportportal.okhttp3.support.TeeResponseBody;
+import com.epam.reportportal.okhttp3.support.WireStats;
+import com.epam.reportportal.service.LoggingContext;
+import com.epam.reportportal.service.ReportPortal;
 import okhttp3.*;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class ReportPortalOkHttp3LoggingInterceptor extends AbstractHttpFormatter<ReportPortalOkHttp3LoggingInterceptor>
 		implements Interceptor {
 
-	private final List<Predicate<Request>> requestFilters = new CopyOnWriteArrayList<>();
+	public static final String EVENT_STREAM_TYPE = "text/event-stream";
+	public static final String EVENTS_TAG = "**<<< RESPONSE EVENTS %d-%d**";
+	public static final String NO_RESPONSE_TAG = "**<<< NO RESPONSE**";
+	public static final int DEFAULT_STREAM_BATCH_SIZE = 10;
+	public static final long DEFAULT_STREAM_BATCH_INTERVAL = 1000;
+
+	private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+	private final List<RequestFilter> declarativeFilters = new ArrayList<>();
+	private final List<Predicate<Request>> requestFilters = new ArrayList<>();
+	private volatile RequestMatcher requestMatcher = RequestMatcher.EMPTY;
+	private volatile RouteTable<ReportPortalOkHttp3LoggingInterceptor> profiles = RouteTable.empty();
+	private final List<Predicate<Response>> responseFilters = new CopyOnWriteArrayList<>();
+	private final Map<BodyType, Long> captureLimits = new ConcurrentHashMap<>();
+	private final Set<String> streamingTypes = ConcurrentHashMap.newKeySet();
+	private volatile AsyncLogEmitter asyncEmitter;
+	private volatile SamplingPolicy samplingPolicy;
+	private volatile boolean alwaysLogFailures;
+	private volatile boolean logFailuresOnly;
+	private volatile long spillThreshold = BodyCapture.UNLIMITED;
+	private volatile InterceptorMetrics metrics = InterceptorMetrics.NOOP;
+	private volatile PartPolicy partPolicy = PartPolicy.content();
+	private volatile ReportPortalOkHttp3EventListenerFactory eventListenerFactory;
+	private volatile PrettifierCache prettifierCache;
+	private volatile PrettifierGuard prettifierGuard;
+	private volatile int streamBatchSize = DEFAULT_STREAM_BATCH_SIZE;
+	private volatile long streamBatchInterval = DEFAULT_STREAM_BATCH_INTERVAL;
+	private volatile AttachmentDeduplicator attachmentDeduplicator;
+	private volatile MediaTypeCache mediaTypes;
 
 	protected final Function<Param, String> paramConverter;
 
@@ -64,6 +129,7 @@ public class ReportPortalOkHttp3LoggingInterceptor extends AbstractHttpFormatter
 			@Nullable Function<Param, String> paramConverter) {
 		super(defaultLogLevel, headerConvertFunction, partHeaderConvertFunction, cookieConvertFunction, uriConverterFunction);
 		this.paramConverter = paramConverter != null ? paramConverter : DefaultFormParamConverter.INSTANCE;
+		streamingTypes.add(EVENT_STREAM_TYPE);
 	}
 
 	/**
@@ -126,51 +192,1024 @@ public class ReportPortalOkHttp3LoggingInterceptor extends AbstractHttpFormatter
 		this(defaultLogLevel, DefaultHttpHeaderConverter.INSTANCE, DefaultHttpHeaderConverter.INSTANCE);
 	}
 
-	@SuppressWarnings("resource")
-	private static Response[] duplicateResponse(Response from) throws IOException {
-		Response.Builder responseBuilder1 = from.newBuilder();
-		Response.Builder responseBuilder2 = from.newBuilder();
-		ResponseBody body = from.body();
-		if (body != null) {
-			MediaType type = body.contentType();
-			byte[] bytes = body.bytes();
-			responseBuilder1.body(ResponseBody.create(bytes, type));
-			responseBuilder2.body(ResponseBody.create(bytes, type));
+	@Nonnull
+	private static String appendFooter(@Nonnull String message, @Nullable String footer) {
+		return footer == null ? message : message + Constants.LINE_DELIMITER + Constants.LINE_DELIMITER + footer;
+	}
+
+	@Nonnull
+	private static String formatBinaryHead(@Nonnull HttpFormatter formatter, @Nullable BodyCapture capture,
+			@Nullable String footer) {
+		String head = formatter.formatHead();
+		if (capture != null && capture.isTruncated()) {
+			head = appendFooter(head, capture.getTruncationMarker());
+		}
+		return appendFooter(head, footer);
+	}
+
+	/**
+	 * Get the hash the binary body of an entry is deduplicated by, see {@link #setAttachmentDeduplicator}. Truncated
+	 * and not fully read bodies are not deduplicated, since their attachment doesn't hold the whole payload.
+	 *
+	 * @param formatter formatter to emit
+	 * @param capture   body capture the formatter was created from
+	 * @return SHA-256 hash of the body or <code>null</code> if the body is not deduplicated
+	 */
+	@Nullable
+	private String getAttachmentHash(@Nonnull HttpFormatter formatter, @Nullable BodyCapture capture) {
+		if (attachmentDeduplicator == null || capture == null || BodyType.BINARY != formatter.getType()
+				|| capture.getEncodedTotal() == 0 || capture.isTruncated()) {
+			return null;
+		}
+		return capture.getSha256();
+	}
+
+	/**
+	 * Check if the binary body of an entry was already attached, see {@link #setAttachmentDeduplicator}.
+	 *
+	 * @param context   logging context of the entry, or <code>null</code> to use the context of the current thread
+	 * @param formatter formatter to emit
+	 * @param capture   body capture the formatter was created from
+	 * @return reference to the earlier attachment or <code>null</code> if the body should be attached
+	 */
+	@Nullable
+	private String getDuplicateReference(@Nullable LoggingContext context, @Nonnull HttpFormatter formatter,
+			@Nullable BodyCapture capture) {
+		AttachmentDeduplicator deduplicator = attachmentDeduplicator;
+		String sha256 = getAttachmentHash(formatter, capture);
+		if (deduplicator == null || sha256 == null) {
+			return null;
+		}
+		// The hash covers the body as transferred, so it's compared with the encoded size
+		long size = capture.getEncodedTotal();
+		if (!deduplicator.isDuplicate(context, sha256, size)) {
+			return null;
 		}
-		return new Response[] { responseBuilder1.build(), responseBuilder2.build() };
+		return appendFooter(formatter.formatHead(), String.format(AttachmentDeduplicator.DUPLICATE_ATTACHMENT, size, sha256));
+	}
+
+	/**
+	 * Remember the binary body of an entry which was just attached in full, so later entries refer to it, see
+	 * {@link #setAttachmentDeduplicator}.
+	 *
+	 * @param context   logging context of the entry, or <code>null</code> to use the context of the current thread
+	 * @param formatter emitted formatter
+	 * @param capture   body capture the formatter was created from
+	 */
+	private void rememberAttachment(@Nullable LoggingContext context, @Nonnull HttpFormatter formatter,
+			@Nullable BodyCapture capture) {
+		AttachmentDeduplicator deduplicator = attachmentDeduplicator;
+		String sha256 = getAttachmentHash(formatter, capture);
+		if (deduplicator != null && sha256 != null) {
+			deduplicator.remember(context, sha256);
+		}
+	}
+
+	/**
+	 * Emit a log entry, adding a truncation marker to binary entries whose body capture hit the limit and reading
+	 * spilled binary data from its temporary file. Text bodies get their marker at formatting time.
+	 *
+	 * @param formatter formatter to emit
+	 * @param capture   body capture the formatter was created from
+	 */
+	protected void emitLog(@Nonnull HttpFormatter formatter, @Nullable BodyCapture capture) {
+		emitLog(formatter, capture, null);
+	}
+
+	/**
+	 * Emit a log entry like {@link #emitLog(HttpFormatter, BodyCapture)} does, with an extra footer at the end of the
+	 * message, e.g. call timings. The footer is not supported for multipart entries and ignored for them.
+	 *
+	 * @param formatter formatter to emit
+	 * @param capture   body capture the formatter was created from
+	 * @param footer    text to add at the end of the message
+	 */
+	protected void emitLog(@Nonnull HttpFormatter formatter, @Nullable BodyCapture capture, @Nullable String footer) {
+		try {
+			String duplicate = getDuplicateReference(null, formatter, capture);
+			if (duplicate != null) {
+				ReportPortal.emitLog(appendFooter(duplicate, footer), String.valueOf(logLevel), Instant.now());
+				return;
+			}
+			BodyType type = formatter.getType();
+			boolean truncatedOrSpilled = capture != null && (capture.isTruncated() || capture.isSpilled());
+			if (BodyType.BINARY == type && (truncatedOrSpilled || footer != null)) {
+				byte[] data = capture != null && capture.isSpilled() ? capture.readByteArray() : formatter.getBinaryBody();
+				attachAsBinary(formatBinaryHead(formatter, capture, footer), data, formatter.getMimeType());
+			} else if (BodyType.MULTIPART != type && footer != null) {
+				ReportPortal.emitLog(appendFooter(formatter.formatAsText(), footer), String.valueOf(logLevel), Instant.now());
+			} else {
+				emitLog(formatter);
+			}
+			rememberAttachment(null, formatter, capture);
+		} finally {
+			if (capture != null) {
+				capture.close();
+			}
+		}
+	}
+
+	private void emitLog(@Nonnull LoggingContext context, @Nonnull Instant time, @Nonnull HttpFormatter formatter,
+			@Nullable BodyCapture capture, @Nullable String footer) {
+		String level = String.valueOf(logLevel);
+		String duplicate = getDuplicateReference(context, formatter, capture);
+		if (BodyType.BINARY != formatter.getType() || duplicate != null) {
+			if (capture != null && duplicate != null) {
+				capture.close();
+			}
+			String message = appendFooter(duplicate == null ? formatter.formatAsText() : duplicate, footer);
+			context.emit(itemUuid -> LogRequestFactory.create(itemUuid, level, time, message, null, null));
+			return;
+		}
+		String message = formatBinaryHead(formatter, capture, footer);
+		String mediaType = formatter.getMimeType();
+		if (capture != null && capture.isSpilled()) {
+			// Read the file only when the client is about to send the entry
+			context.emit(itemUuid -> {
+				try {
+					return LogRequestFactory.create(itemUuid, level, time, message, capture.readByteArray(), mediaType);
+				} finally {
+					capture.close();
+				}
+			});
+		} else {
+			byte[] data = formatter.getBinaryBody();
+			context.emit(itemUuid -> LogRequestFactory.create(itemUuid, level, time, message, data, mediaType));
+		}
+		rememberAttachment(context, formatter, capture);
 	}
 
 	@Nonnull
+	private HttpFormatter format(@Nonnull InterceptorMetrics.Phase phase,
+			@Nonnull Supplier<? extends HttpFormatter> formatterSupplier, @Nullable BodyCapture capture) {
+		InterceptorMetrics m = metrics;
+		long start = System.nanoTime();
+		HttpFormatter formatter = formatterSupplier.get();
+		m.onPhase(phase, System.nanoTime() - start);
+		if (capture != null) {
+			m.onCapture(capture.getCaptured(), capture.getOmitted(), capture.isTruncated());
+		}
+		return formatter;
+	}
+
+	private void emitLogNow(@Nonnull InterceptorMetrics.Phase phase,
+			@Nonnull Supplier<? extends HttpFormatter> formatterSupplier, @Nullable BodyCapture capture,
+			@Nullable String footer) {
+		HttpFormatter formatter = format(phase, formatterSupplier, capture);
+		long start = System.nanoTime();
+		emitLog(formatter, capture, footer);
+		metrics.onPhase(InterceptorMetrics.Phase.EMISSION, System.nanoTime() - start);
+	}
+
+	/**
+	 * Emit a log entry. If an asynchronous emitter is set, the formatter is created and emitted on the emitter's worker
+	 * thread, but the entry is still bound to the test item which is active on the calling thread.
+	 *
+	 * @param phase             formatting phase to report to metrics
+	 * @param formatterSupplier formatter factory
+	 * @param capture           body capture the formatter is created from
+	 */
+	protected void emitLog(@Nonnull InterceptorMetrics.Phase phase,
+			@Nonnull Supplier<? extends HttpFormatter> formatterSupplier, @Nullable BodyCapture capture) {
+		emitLog(phase, formatterSupplier, capture, null);
+	}
+
+	/**
+	 * Emit a log entry with an extra footer at the end of the message, see
+	 * {@link #emitLog(InterceptorMetrics.Phase, Supplier, BodyCapture)}.
+	 *
+	 * @param phase             formatting phase to report to metrics
+	 * @param formatterSupplier formatter factory
+	 * @param capture           body capture the formatter is created from
+	 * @param footer            text to add at the end of the message
+	 */
+	protected void emitLog(@Nonnull InterceptorMetrics.Phase phase,
+			@Nonnull Supplier<? extends HttpFormatter> formatterSupplier, @Nullable BodyCapture capture,
+			@Nullable String footer) {
+		emitLog(null, phase, formatterSupplier, capture, footer);
+	}
+
+	private void emitLogTo(@Nonnull LoggingContext context, @Nonnull Instant time,
+			@Nonnull InterceptorMetrics.Phase phase, @Nonnull Supplier<? extends HttpFormatter> formatterSupplier,
+			@Nullable BodyCapture capture, @Nullable String footer) {
+		HttpFormatter formatter = format(phase, formatterSupplier, capture);
+		long start = System.nanoTime();
+		emitLog(context, time, formatter, capture, footer);
+		metrics.onPhase(InterceptorMetrics.Phase.EMISSION, System.nanoTime() - start);
+	}
+
+	/**
+	 * Emit a log entry bound to the logging context of the call, see
+	 * {@link ReportPortalOkHttp3EventListenerFactory#getContext(Call)}.
+	 *
+	 * @param callContext       logging context captured when the call was created or <code>null</code> to use the
+	 *                          context of the current thread
+	 * @param phase             formatting phase to report to metrics
+	 * @param formatterSupplier formatter factory
+	 * @param capture           body capture the formatter is created from
+	 * @param footer            text to add at the end of the message
+	 */
+	private void emitLog(@Nullable LoggingContext callContext, @Nonnull InterceptorMetrics.Phase phase,
+			@Nonnull Supplier<? extends HttpFormatter> formatterSupplier, @Nullable BodyCapture capture,
+			@Nullable String footer) {
+		AsyncLogEmitter emitter = asyncEmitter;
+		LoggingContext context = callContext == null && emitter != null ? LoggingContext.context() : callContext;
+		if (context == null || (emitter == null && context == LoggingContext.context())) {
+			emitLogNow(phase, formatterSupplier, capture, footer);
+			return;
+		}
+		Instant time = Instant.now();
+		if (emitter == null) {
+			// An enqueued call runs on a dispatcher thread, which has no test item of its own
+			emitLogTo(context, time, phase, formatterSupplier, capture, footer);
+			return;
+		}
+		emitter.submit(() -> emitLogTo(context, time, phase, formatterSupplier, capture, footer), () -> {
+			metrics.onDrop();
+			// A dropped entry still owns its capture, which may have spilled to a temporary file
+			if (capture != null) {
+				capture.close();
+			}
+		});
+	}
+
+	/**
+	 * Get the media type cache of the current body type map. The cache is dropped by
+	 * {@link #setBodyTypeMap(Map)} and also recreated if the map is replaced any other way.
+	 *
+	 * @return media type cache
+	 */
+	@Nonnull
+	private MediaTypeCache getMediaTypes() {
+		Map<String, BodyType> bodyTypeMap = getBodyTypeMap();
+		MediaTypeCache cache = mediaTypes;
+		if (cache == null || cache.getBodyTypeMap() != bodyTypeMap) {
+			cache = new MediaTypeCache(bodyTypeMap);
+			mediaTypes = cache;
+		}
+		return cache;
+	}
+
+	/**
+	 * Set mime type to body type map, media types resolved with the previous map are forgotten.
+	 *
+	 * @param typeMap mime type to body type map
+	 * @return self
+	 */
 	@Override
-	public Response intercept(@Nonnull Chain chain) throws IOException {
-		Request request = chain.request();
-		if (requestFilters.stream().anyMatch(f -> f.test(request))) {
-			return chain.proceed(chain.request());
+	public ReportPortalOkHttp3LoggingInterceptor setBodyTypeMap(@Nonnull Map<String, BodyType> typeMap) {
+		super.setBodyTypeMap(typeMap);
+		mediaTypes = null;
+		return this;
+	}
+
+	@Nullable
+	private Map<String, Function<String, String>> getPrettifiers() {
+		Map<String, Function<String, String>> prettifiers = getContentPrettifiers();
+		if (prettifiers == null) {
+			return null;
+		}
+		PrettifierCache cache = prettifierCache;
+		if (cache != null) {
+			prettifiers = cache.wrap(prettifiers);
+		}
+		// The guard goes last, so oversized bodies are not hashed and cache lookups count towards the time budget
+		PrettifierGuard guard = prettifierGuard;
+		return guard == null ? prettifiers : guard.wrap(prettifiers);
+	}
+
+	@Nullable
+	private static String formatFooter(@Nullable CallTimings timings, @Nullable WireStats wire) {
+		if (wire == null) {
+			return timings == null ? null : timings.format();
+		}
+		return timings == null ? wire.format() : appendFooter(timings.format(), wire.format());
+	}
+
+	private void emitResponseLog(@Nonnull Response response, @Nullable BodyCapture capture,
+			@Nullable CallTimings timings, @Nullable WireStats wire, @Nullable LoggingContext context) {
+		if (wire != null && capture != null) {
+			wire.setResponseBodyBytes(capture.getEncodedTotal());
+		}
+		// Format timings right away, while they are up-to-date
+		String footer = formatFooter(timings, wire);
+		emitLog(
+				context, InterceptorMetrics.Phase.RESPONSE_FORMATTING, () -> HttpEntityFactory.createHttpResponseFormatter(
+						response,
+						capture,
+						headerConverter,
+						cookieConverter,
+						getPrettifiers(),
+						getMediaTypes()
+				), capture, footer
+		);
+	}
+
+	/**
+	 * Wrap response body into a {@link TeeResponseBody} which streams data to the caller and emits the response log
+	 * entry as soon as the caller reads the body to the end or closes it.
+	 *
+	 * @param response response to wrap
+	 * @param timings  timings of the call to attach to the response entry, if any
+	 * @return response with the tee body
+	 */
+	@Nonnull
+	protected Response teeResponse(@Nonnull Response response, @Nullable CallTimings timings) {
+		return teeResponse(response, timings, null, null);
+	}
+
+	/**
+	 * Wrap response body like {@link #teeResponse(Response, CallTimings)} does, attach wire-level statistics of the
+	 * network hop to the response entry and bind the entry to the logging context of the call.
+	 *
+	 * @param response response to wrap
+	 * @param timings  timings of the call to attach to the response entry, if any
+	 * @param wire     wire-level statistics of the hop, if any, see {@link #startHop(Chain)}
+	 * @param context  logging context captured when the call was created or <code>null</code> to use the context of
+	 *                 the thread which emits the entry
+	 * @return response with the tee body
+	 */
+	@Nonnull
+	protected Response teeResponse(@Nonnull Response response, @Nullable CallTimings timings,
+			@Nullable WireStats wire, @Nullable LoggingContext context) {
+		if (wire != null) {
+			wire.setResponse(response);
+		}
+		ResponseBody body = response.body();
+		if (body == null) {
+			emitResponseLog(response, null, timings, wire, context);
+			return response;
+		}
+		if (!promisesBody(response)) {
+			// E.g. a WebSocket upgrade, whose body is never read or closed by OkHttp, so a tee would never complete
+			emitResponseLog(response.newBuilder().body(null).build(), null, timings, wire, context);
+			return response;
 		}
-		emitLog(HttpEntityFactory.createHttpRequestFormatter(
+		MediaType contentType = body.contentType();
+		String mimeType = contentType == null ? null : toMimeType(contentType);
+		if (mimeType != null && streamingTypes.contains(mimeType)) {
+			return streamResponse(response, body, mimeType, timings, wire, context);
+		}
+		BodyCapture capture = newCapture(
+				getMediaTypes().resolve(body.contentType()).getBodyType(),
+				response.header(CONTENT_ENCODING_HEADER)
+		);
+		return response.newBuilder()
+				.body(new TeeResponseBody(body, capture, c -> emitResponseLog(response, c, timings, wire, context)))
+				.build();
+	}
+
+	/**
+	 * @param response response to check
+	 * @return <code>false</code> for responses which have no body by definition: responses to <code>HEAD</code>
+	 * requests, informational ones, e.g. <code>101 Switching Protocols</code>, <code>204</code> and <code>304</code>
+	 */
+	private static boolean promisesBody(@Nonnull Response response) {
+		if ("HEAD".equals(response.request().method())) {
+			return false;
+		}
+		int code = response.code();
+		return code >= 200 && code != 204 && code != 304;
+	}
+
+	@Nonnull
+	private static String toMimeType(@Nonnull MediaType mediaType) {
+		return (mediaType.type() + "/" + mediaType.subtype()).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Emit a text log entry on the interceptor's log level, bound to the given logging context.
+	 *
+	 * @param context logging context captured on the thread which started the call, or <code>null</code> to use the
+	 *                context of the current thread
+	 * @param message entry message
+	 */
+	void emitText(@Nullable LoggingContext context, @Nonnull String message) {
+		String level = String.valueOf(logLevel);
+		Instant time = Instant.now();
+		if (context == null) {
+			ReportPortal.emitLog(message, level, time);
+		} else {
+			context.emit(itemUuid -> LogRequestFactory.create(itemUuid, level, time, message, null, null));
+		}
+	}
+
+	private void emitEvents(@Nullable LoggingContext context, long first, @Nonnull List<String> events) {
+		emitText(
+				context,
+				String.format(EVENTS_TAG, first, first + events.size() - 1) + Constants.LINE_DELIMITER + "```"
+						+ Constants.LINE_DELIMITER + String.join(Constants.LINE_DELIMITER + Constants.LINE_DELIMITER, events)
+						+ Constants.LINE_DELIMITER + "```"
+		);
+	}
+
+	/**
+	 * Log a long-lived stream response, e.g. Server-Sent Events. The response head is logged right away, events are
+	 * passed to the caller as soon as they arrive and logged in batches, see {@link #setStreamBatch(int, long)}.
+	 * Batches are bound to the test item of the call, or to the one which is active on the calling thread, even if the
+	 * stream is read by another thread.
+	 *
+	 * @param response    response to log
+	 * @param body        response body
+	 * @param mimeType    response mime type
+	 * @param timings     timings of the call to attach to the response head entry, if any
+	 * @param wire        wire-level statistics of the hop to attach to the response head entry, if any
+	 * @param callContext logging context captured when the call was created, if any
+	 * @return response with the streaming body
+	 */
+	@Nonnull
+	protected Response streamResponse(@Nonnull Response response, @Nonnull ResponseBody body, @Nonnull String mimeType,
+			@Nullable CallTimings timings, @Nullable WireStats wire, @Nullable LoggingContext callContext) {
+		emitResponseLog(response.newBuilder().body(null).build(), null, timings, wire, callContext);
+		LoggingContext context = callContext == null ? LoggingContext.context() : callContext;
+		AtomicLong counter = new AtomicLong();
+		StreamingResponseBody streamingBody = new StreamingResponseBody(
+				body,
+				EVENT_STREAM_TYPE.equals(mimeType) ?
+						StreamingResponseBody.EVENT_DELIMITER :
+						StreamingResponseBody.LINE_DELIMITER,
+				streamBatchSize,
+				streamBatchInterval,
+				getCaptureLimit(BodyType.TEXT),
+				events -> emitEvents(context, counter.getAndAdd(events.size()) + 1, events)
+		);
+		return response.newBuilder().body(streamingBody).build();
+	}
+
+	private void emitRequestLog(@Nonnull Request request, @Nullable BodyCapture capture,
+			@Nullable List<BodyCapture> partCaptures, @Nullable LoggingContext context) {
+		PartPolicy policy = partPolicy;
+		Supplier<HttpFormatter> requestFormatter = () -> HttpEntityFactory.createHttpRequestFormatter(
 				request,
+				capture,
 				uriConverter,
 				headerConverter,
 				cookieConverter,
 				paramConverter,
-				getContentPrettifiers(),
+				getPrettifiers(),
 				partHeaderConverter,
-				getBodyTypeMap()
-		));
-		Response response = chain.proceed(chain.request());
-		Response[] responses = duplicateResponse(response);
-		emitLog(HttpEntityFactory.createHttpResponseFormatter(
-				responses[0],
-				headerConverter,
-				cookieConverter,
-				getContentPrettifiers(),
-				getBodyTypeMap()
-		));
-		return responses[1];
+				getMediaTypes(),
+				captureLimits,
+				partCaptures,
+				policy
+		);
+		if (request.body() instanceof MultipartBody) {
+			// Multipart entries are reported as nested steps, which are bound to the calling thread
+			emitLogNow(InterceptorMetrics.Phase.REQUEST_FORMATTING, requestFormatter, capture, null);
+		} else {
+			emitLog(context, InterceptorMetrics.Phase.REQUEST_FORMATTING, requestFormatter, capture, null);
+		}
+	}
+
+	@Nonnull
+	private BodyCapture newCapture(@Nonnull BodyType type, @Nullable String contentEncoding) {
+		long limit = getCaptureLimit(type);
+		long threshold = BodyType.BINARY == type ? spillThreshold : BodyCapture.UNLIMITED;
+		BodyCapture capture = DecodingBodyCapture.isSupported(contentEncoding) ?
+				new DecodingBodyCapture(contentEncoding, limit, threshold) :
+				new BodyCapture(limit, threshold);
+		return BodyType.BINARY == type && attachmentDeduplicator != null ? capture.hashing() : capture;
+	}
+
+	@Nullable
+	private BodyCapture newRequestCapture(@Nonnull Request request) {
+		RequestBody body = request.body();
+		if (body == null || body.isDuplex()) {
+			return null;
+		}
+		BodyType type = getMediaTypes().resolve(body.contentType()).getBodyType();
+		if (BodyType.TEXT != type && BodyType.BINARY != type) {
+			return null;
+		}
+		return newCapture(type, request.header(CONTENT_ENCODING_HEADER));
+	}
+
+	@Nullable
+	private List<BodyCapture> newPartCaptures(@Nullable RequestBody body) {
+		if (!(body instanceof MultipartBody) || ((MultipartBody) body).parts().isEmpty()) {
+			return null;
+		}
+		return HttpEntityFactory.createPartCaptures((MultipartBody) body, getMediaTypes(), captureLimits, partPolicy);
+	}
+
+	@Nullable
+	private static TeeRequestBody newTeeBody(@Nonnull Request request, @Nullable BodyCapture capture,
+			@Nullable List<BodyCapture> partCaptures, @Nonnull Consumer<BodyCapture> onComplete) {
+		RequestBody body = Objects.requireNonNull(request.body());
+		if (partCaptures != null) {
+			// The whole body is not logged, only its parts, so only count its bytes
+			return new TeeRequestBody(TeeRequestBody.multipart((MultipartBody) body, partCaptures), new BodyCapture(0), onComplete);
+		}
+		return new TeeRequestBody(body, Objects.requireNonNull(capture), onComplete);
+	}
+
+	private static void close(@Nullable BodyCapture capture, @Nullable List<BodyCapture> partCaptures) {
+		if (capture != null) {
+			capture.close();
+		}
+		if (partCaptures != null) {
+			partCaptures.forEach(BodyCapture::close);
+		}
+	}
+
+	/**
+	 * Wrap TEXT, BINARY and multipart request bodies into a {@link TeeRequestBody} which captures the body while OkHttp
+	 * writes it to the wire and emits the request log entry once it's written. Other requests are logged immediately.
+	 *
+	 * @param request request to wrap
+	 * @return tee body or <code>null</code> if the request was already logged
+	 */
+	@Nullable
+	protected TeeRequestBody teeRequest(@Nonnull Request request) {
+		return teeRequest(request, null);
 	}
 
+	/**
+	 * Wrap request body like {@link #teeRequest(Request)} does and bind the request entry to the logging context of
+	 * the call.
+	 *
+	 * @param request request to wrap
+	 * @param context logging context captured when the call was created or <code>null</code> to use the context of
+	 *                the thread which emits the entry
+	 * @return tee body or <code>null</code> if the request was already logged
+	 */
+	@Nullable
+	protected TeeRequestBody teeRequest(@Nonnull Request request, @Nullable LoggingContext context) {
+		BodyCapture capture = newRequestCapture(request);
+		List<BodyCapture> partCaptures = newPartCaptures(request.body());
+		if (capture == null && partCaptures == null) {
+			emitRequestLog(request, null, null, context);
+			return null;
+		}
+		return newTeeBody(request, capture, partCaptures, c -> emitRequestLog(request, capture, partCaptures, context));
+	}
+
+	@Nonnull
+	private static Response proceed(@Nonnull Chain chain, @Nonnull Request request, @Nullable TeeRequestBody teeBody)
+			throws IOException {
+		try {
+			return chain.proceed(teeBody == null ? request : request.newBuilder().method(request.method(), teeBody).build());
+		} finally {
+			if (teeBody != null) {
+				teeBody.complete();
+			}
+		}
+	}
+
+	@Nullable
+	private CallTimings getTimings(@Nonnull Chain chain) {
+		ReportPortalOkHttp3EventListenerFactory factory = eventListenerFactory;
+		return factory == null ? null : factory.getTimings(chain.call());
+	}
+
+	@Nullable
+	private LoggingContext getCallContext(@Nonnull Chain chain) {
+		ReportPortalOkHttp3EventListenerFactory factory = eventListenerFactory;
+		return factory == null ? null : factory.getContext(chain.call());
+	}
+
+	/**
+	 * Start a network hop of a call and get the object to collect its wire-level statistics. An application
+	 * interceptor sees one logical request per call and no wire-level data, so nothing is collected by default, see
+	 * {@link ReportPortalOkHttp3NetworkInterceptor}.
+	 *
+	 * @param chain interceptor chain
+	 * @return statistics of the hop or <code>null</code> to skip collecting them
+	 */
+	@Nullable
+	protected WireStats startHop(@Nonnull Chain chain) {
+		return null;
+	}
+
+	private static void setRequestBodyBytes(@Nullable WireStats wire, @Nonnull Request request,
+			@Nullable TeeRequestBody teeBody) {
+		if (wire == null) {
+			return;
+		}
+		if (teeBody != null) {
+			wire.setRequestBodyBytes(teeBody.getCapture().getEncodedTotal());
+			return;
+		}
+		RequestBody body = request.body();
+		try {
+			// Bodies which are not captured, e.g. forms, know their size without being written
+			wire.setRequestBodyBytes(body == null ? 0 : body.contentLength());
+		} catch (IOException ignore) {
+			// the size stays unknown
+		}
+	}
+
+	private boolean isFiltered(@Nonnull Response response) {
+		return !responseFilters.isEmpty() && responseFilters.stream().anyMatch(f -> f.test(response));
+	}
+
+	/**
+	 * Proceed with a call which should be logged only if it fails. The request body is captured on write, but the
+	 * request is formatted and both entries are emitted only for unsuccessful (not 2xx) responses which are not
+	 * filtered out. If the call fails with no response at all, the request is logged with the transport error. A call
+	 * which is not logged counts as skipped for exactly one reason: the given one if it succeeded, or
+	 * {@link InterceptorMetrics.SkipReason#RESPONSE_FILTER} if it failed but was filtered out.
+	 *
+	 * @param chain      interceptor chain
+	 * @param request    request to proceed with
+	 * @param skipReason reason to report if the call succeeds and is not logged
+	 * @return the response
+	 * @throws IOException if the call failed
+	 */
+	@Nonnull
+	private Response interceptFailuresOnly(@Nonnull Chain chain, @Nonnull Request request,
+			@Nonnull InterceptorMetrics.SkipReason skipReason) throws IOException {
+		CallTimings timings = getTimings(chain);
+		LoggingContext context = getCallContext(chain);
+		WireStats wire = startHop(chain);
+		BodyCapture capture = newRequestCapture(request);
+		List<BodyCapture> partCaptures = newPartCaptures(request.body());
+		TeeRequestBody teeBody = capture == null && partCaptures == null ?
+				null :
+				newTeeBody(request, capture, partCaptures, c -> {
+				});
+		Response response;
+		try {
+			response = proceed(chain, request, teeBody);
+		} catch (IOException e) {
+			// The request entry takes over the captures
+			setRequestBodyBytes(wire, request, teeBody);
+			emitRequestLog(request, capture, partCaptures, context);
+			emitText(context, NO_RESPONSE_TAG + Constants.LINE_DELIMITER + e);
+			throw e;
+		} catch (RuntimeException e) {
+			close(capture, partCaptures);
+			throw e;
+		}
+		if (response.isSuccessful()) {
+			metrics.onSkip(skipReason);
+			close(capture, partCaptures);
+			return response;
+		}
+		if (isFiltered(response)) {
+			metrics.onSkip(InterceptorMetrics.SkipReason.RESPONSE_FILTER);
+			close(capture, partCaptures);
+			return response;
+		}
+		setRequestBodyBytes(wire, request, teeBody);
+		emitRequestLog(request, capture, partCaptures, context);
+		return teeResponse(response, timings, wire, context);
+	}
+
+	@Nonnull
+	@Override
+	public Response intercept(@Nonnull Chain chain) throws IOException {
+		Request request = chain.request();
+		ReportPortalOkHttp3LoggingInterceptor profile = profiles.resolve(request);
+		if (profile != null) {
+			return profile.intercept(chain);
+		}
+		if (requestMatcher.matches(request)) {
+			metrics.onSkip(InterceptorMetrics.SkipReason.FILTER);
+			return chain.proceed(chain.request());
+		}
+		SamplingPolicy policy = samplingPolicy;
+		if (policy != null && !policy.sample(request)) {
+			if (alwaysLogFailures) {
+				return interceptFailuresOnly(chain, request, InterceptorMetrics.SkipReason.SAMPLING);
+			}
+			metrics.onSkip(InterceptorMetrics.SkipReason.SAMPLING);
+			return chain.proceed(request);
+		}
+		if (logFailuresOnly) {
+			return interceptFailuresOnly(chain, request, InterceptorMetrics.SkipReason.RESPONSE_FILTER);
+		}
+		CallTimings timings = getTimings(chain);
+		LoggingContext context = getCallContext(chain);
+		WireStats wire = startHop(chain);
+		TeeRequestBody teeBody = teeRequest(request, context);
+		Response response = proceed(chain, request, teeBody);
+		if (isFiltered(response)) {
+			metrics.onSkip(InterceptorMetrics.SkipReason.RESPONSE_FILTER);
+			return response;
+		}
+		setRequestBodyBytes(wire, request, teeBody);
+		return teeResponse(response, timings, wire, context);
+	}
+
+	private void addFilter(@Nonnull Predicate<Request> requestFilter) {
+		if (requestFilter instanceof RequestFilter) {
+			declarativeFilters.add((RequestFilter) requestFilter);
+		} else {
+			requestFilters.add(requestFilter);
+		}
+	}
+
+	/**
+	 * Add a request filter. If any of the filters matches a request, neither the request nor its response is logged.
+	 * {@link RequestFilter}s are compiled into a lookup by host and path, other predicates are checked one by one after
+	 * that.
+	 *
+	 * @param requestFilter request filter, e.g. built with {@link RequestFilter#builder()}
+	 * @return self
+	 */
 	public ReportPortalOkHttp3LoggingInterceptor addRequestFilter(@Nonnull Predicate<Request> requestFilter) {
-		requestFilters.add(requestFilter);
+		synchronized (declarativeFilters) {
+			addFilter(requestFilter);
+			requestMatcher = RequestMatcher.compile(declarativeFilters, requestFilters);
+		}
+		return this;
+	}
+
+	/**
+	 * Replace all request filters at once, calls in flight see either the old or the new filters.
+	 *
+	 * @param filters request filters, see {@link #addRequestFilter(Predicate)}
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setRequestFilters(
+			@Nonnull Collection<? extends Predicate<Request>> filters) {
+		synchronized (declarativeFilters) {
+			declarativeFilters.clear();
+			requestFilters.clear();
+			filters.forEach(this::addFilter);
+			requestMatcher = RequestMatcher.compile(declarativeFilters, requestFilters);
+		}
 		return this;
 	}
+
+	/**
+	 * Add a logging profile for a route. A request which matches the route is handled by the profile instead of this
+	 * interceptor, with the profile's own log level, converters, filters, capture limits, prettifiers, body type map,
+	 * sampling and other settings, e.g. to log health checks on <code>DEBUG</code> level without bodies and a data API
+	 * with larger capture limits:
+	 * <pre>
+	 * interceptor.addProfile(RequestFilter.builder().pathPrefix("/health").build(),
+	 *         new ReportPortalOkHttp3LoggingInterceptor(LogLevel.DEBUG).setCaptureLimit(BodyType.TEXT, 0));
+	 * </pre>
+	 * Profiles are checked in the order they were added, the first matching one wins. Routes are resolved by request
+	 * host once and cached, see {@link RouteTable}. Shared parts like the event listener factory, the asynchronous
+	 * emitter and metrics should be set on each profile which needs them. Profiles are leaf configurations, an
+	 * interceptor with profiles of its own can't be added as a profile, so profiles never refer to each other in a
+	 * loop.
+	 *
+	 * @param route   route of the profile
+	 * @param profile interceptor to handle the matching calls
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor addProfile(@Nonnull RequestFilter route,
+			@Nonnull ReportPortalOkHttp3LoggingInterceptor profile) {
+		if (profile == this) {
+			throw new IllegalArgumentException("Interceptor can't be a profile of itself");
+		}
+		if (!profile.profiles.isEmpty()) {
+			throw new IllegalArgumentException("Interceptor with profiles can't be a profile");
+		}
+		synchronized (declarativeFilters) {
+			profiles = profiles.with(route, profile);
+		}
+		return this;
+	}
+
+	/**
+	 * Add a response filter. If any of the filters matches a response, the response is not logged and its body is
+	 * passed to the caller untouched, without any buffering.
+	 *
+	 * @param responseFilter response filter, see {@link ResponseFilters} for common ones
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor addResponseFilter(@Nonnull Predicate<Response> responseFilter) {
+		responseFilters.add(responseFilter);
+		return this;
+	}
+
+	/**
+	 * Log only calls which fail (not 2xx). Request formatting is deferred until the response status is known, so
+	 * successful calls cost only the request body capture.
+	 *
+	 * @param logFailuresOnly <code>true</code> to log only failed calls
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setLogFailuresOnly(boolean logFailuresOnly) {
+		this.logFailuresOnly = logFailuresOnly;
+		return this;
+	}
+
+	/**
+	 * Set maximum number of body bytes to capture for the given body type. The rest of the body is passed to the
+	 * caller untouched, but omitted in the log entry.
+	 *
+	 * @param bodyType body type to limit, e.g. {@link BodyType#TEXT} or {@link BodyType#BINARY}
+	 * @param maxBytes maximum number of bytes to capture
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setCaptureLimit(@Nonnull BodyType bodyType, long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Capture limit should not be negative: " + maxBytes);
+		}
+		captureLimits.put(bodyType, maxBytes);
+		return this;
+	}
+
+	public long getCaptureLimit(@Nonnull BodyType bodyType) {
+		return captureLimits.getOrDefault(bodyType, BodyCapture.UNLIMITED);
+	}
+
+	/**
+	 * Set size of captured binary data after which the capture is moved from heap to a temporary file. The file is
+	 * streamed into the log entry on emission and deleted after that.
+	 *
+	 * @param spillThreshold number of bytes to keep in memory
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setSpillThreshold(long spillThreshold) {
+		if (spillThreshold < 0) {
+			throw new IllegalArgumentException("Spill threshold should not be negative: " + spillThreshold);
+		}
+		this.spillThreshold = spillThreshold;
+		return this;
+	}
+
+	public long getSpillThreshold() {
+		return spillThreshold;
+	}
+
+	/**
+	 * Set a sampling policy to log only a part of HTTP calls. Pass <code>null</code> to log every call.
+	 *
+	 * @param policy sampling policy or <code>null</code>
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setSamplingPolicy(@Nullable SamplingPolicy policy) {
+		samplingPolicy = policy;
+		return this;
+	}
+
+	/**
+	 * Log calls which were not sampled anyway, if their response is not successful (not 2xx).
+	 *
+	 * @param alwaysLogFailures <code>true</code> to override sampling for unsuccessful calls
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setAlwaysLogFailures(boolean alwaysLogFailures) {
+		this.alwaysLogFailures = alwaysLogFailures;
+		return this;
+	}
+
+	/**
+	 * Set a policy which decides how to log each part of multipart requests, e.g. {@link PartPolicy#summarizeBinary()}
+	 * to log only size and hash of binary parts. Parts are captured while OkHttp writes them to the wire, up to the
+	 * capture limit of their body type.
+	 *
+	 * @param partPolicy multipart part policy
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setPartPolicy(@Nonnull PartPolicy partPolicy) {
+		this.partPolicy = partPolicy;
+		return this;
+	}
+
+	@Nonnull
+	public PartPolicy getPartPolicy() {
+		return partPolicy;
+	}
+
+	/**
+	 * Set an event listener factory to attach call timings to response log entries. The same factory should be set to
+	 * the OkHttp client with {@link OkHttpClient.Builder#eventListenerFactory}.
+	 *
+	 * @param eventListenerFactory event listener factory or <code>null</code> to not log timings
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setEventListenerFactory(
+			@Nullable ReportPortalOkHttp3EventListenerFactory eventListenerFactory) {
+		this.eventListenerFactory = eventListenerFactory;
+		return this;
+	}
+
+	@Nullable
+	public ReportPortalOkHttp3EventListenerFactory getEventListenerFactory() {
+		return eventListenerFactory;
+	}
+
+	/**
+	 * Set a cache of content prettifier results, so repeated payloads are prettified only once. Pass <code>null</code>
+	 * to prettify every payload.
+	 *
+	 * @param prettifierCache prettifier cache or <code>null</code>
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setPrettifierCache(@Nullable PrettifierCache prettifierCache) {
+		this.prettifierCache = prettifierCache;
+		return this;
+	}
+
+	@Nullable
+	public PrettifierCache getPrettifierCache() {
+		return prettifierCache;
+	}
+
+	/**
+	 * Set a guard around content prettifiers, to log bodies raw if they are too big or take too long to prettify. Pass
+	 * <code>null</code> to prettify every body without limits.
+	 *
+	 * @param prettifierGuard prettifier guard or <code>null</code>
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setPrettifierGuard(@Nullable PrettifierGuard prettifierGuard) {
+		this.prettifierGuard = prettifierGuard;
+		return this;
+	}
+
+	@Nullable
+	public PrettifierGuard getPrettifierGuard() {
+		return prettifierGuard;
+	}
+
+	/**
+	 * Attach each distinct binary body only once per test item or launch. Binary bodies are hashed while captured, and
+	 * an entry whose body was already attached gets its size and hash instead of the attachment. Pass
+	 * <code>null</code> to attach every body.
+	 *
+	 * @param attachmentDeduplicator attachment deduplicator or <code>null</code>
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setAttachmentDeduplicator(
+			@Nullable AttachmentDeduplicator attachmentDeduplicator) {
+		this.attachmentDeduplicator = attachmentDeduplicator;
+		return this;
+	}
+
+	@Nullable
+	public AttachmentDeduplicator getAttachmentDeduplicator() {
+		return attachmentDeduplicator;
+	}
+
+	/**
+	 * Log responses of the given mime type as a stream of events, e.g. <code>application/x-ndjson</code> for newline
+	 * delimited JSON or a long-poll stream. Such responses are split into lines, except
+	 * {@link #EVENT_STREAM_TYPE} which is split into Server-Sent Events and is streamed by default.
+	 *
+	 * @param mimeType mime type without parameters
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor addStreamingType(@Nonnull String mimeType) {
+		streamingTypes.add(mimeType.toLowerCase(Locale.ROOT));
+		return this;
+	}
+
+	public ReportPortalOkHttp3LoggingInterceptor removeStreamingType(@Nonnull String mimeType) {
+		streamingTypes.remove(mimeType.toLowerCase(Locale.ROOT));
+		return this;
+	}
+
+	/**
+	 * Set how stream events are batched into log entries. A batch is logged once it has the given number of events, or
+	 * on arrival of an event if the given time passed since the previous batch. The last batch is logged when the
+	 * stream ends or is closed.
+	 *
+	 * @param batchSize     maximum number of events in a log entry
+	 * @param batchInterval maximum time in milliseconds between log entries while events arrive
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setStreamBatch(int batchSize, long batchInterval) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+		}
+		if (batchInterval < 0) {
+			throw new IllegalArgumentException("Batch interval should not be negative: " + batchInterval);
+		}
+		streamBatchSize = batchSize;
+		streamBatchInterval = batchInterval;
+		return this;
+	}
+
+	/**
+	 * Set a listener of the interceptor's own overhead, e.g. {@link InMemoryInterceptorMetrics}.
+	 *
+	 * @param metrics metrics listener
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setMetrics(@Nonnull InterceptorMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	@Nonnull
+	public InterceptorMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Set an asynchronous emitter to move log entry formatting and emission off the HTTP call thread. The interceptor
+	 * only captures raw request and response data on the calling thread. Pass <code>null</code> to switch back to
+	 * synchronous emission.
+	 *
+	 * @param emitter asynchronous emitter or <code>null</code>
+	 * @return self
+	 */
+	public ReportPortalOkHttp3LoggingInterceptor setAsyncEmitter(@Nullable AsyncLogEmitter emitter) {
+		asyncEmitter = emitter;
+		return this;
+	}
+
+	@Nullable
+	public AsyncLogEmitter getAsyncEmitter() {
+		return asyncEmitter;
+	}
 }
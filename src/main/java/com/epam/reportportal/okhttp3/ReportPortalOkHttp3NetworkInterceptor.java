@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.formatting.http.entities.Cookie;
+import com.epam.reportportal.formatting.http.entities.Header;
+import com.epam.reportportal.formatting.http.entities.Param;
+import com.epam.reportportal.listeners.LogLevel;
+import com.epam.reportportal.okhttp3.support.WireStats;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Logging interceptor to register as an OkHttp network interceptor:
+ * <pre>
+ * OkHttpClient client = new OkHttpClient.Builder()
+ *         .addNetworkInterceptor(new ReportPortalOkHttp3NetworkInterceptor(LogLevel.INFO))
+ *         .build();
+ * </pre>
+ * A network interceptor sees every request actually sent, including retries and redirect follow-ups, with the headers
+ * OkHttp adds, e.g. <code>Host</code> and <code>Accept-Encoding</code>. Each response entry gets the hop number within
+ * its call, the protocol, wire byte counts of headers and bodies and the latency from sending the request to
+ * receiving the response headers. Body bytes are counted by the capturing tee bodies, so nothing is buffered to measure
+ * them, and compressed bodies are counted before decoding. If registered as an application interceptor, it logs like
+ * {@link ReportPortalOkHttp3LoggingInterceptor} and adds no wire-level data.
+ */
+public class ReportPortalOkHttp3NetworkInterceptor extends ReportPortalOkHttp3LoggingInterceptor {
+
+	// Calls do not report their end to interceptors, so they are held weakly and forgotten once collected
+	private final Map<Call, AtomicInteger> hops = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Create OKHTTP3 network Interceptor with the log level and different converters, see
+	 * {@link ReportPortalOkHttp3LoggingInterceptor#ReportPortalOkHttp3LoggingInterceptor(LogLevel, Function, Function,
+	 * Function, Function, Function)}.
+	 *
+	 * @param defaultLogLevel           log level on which OKHTTP3 requests/responses will appear on Report Portal
+	 * @param headerConvertFunction     HTTP Header converter
+	 * @param partHeaderConvertFunction Multipart part Header converter
+	 * @param cookieConvertFunction     Cookie converter
+	 * @param uriConverterFunction      URI converter
+	 * @param paramConverter            Web Form Param converter
+	 */
+	public ReportPortalOkHttp3NetworkInterceptor(@Nonnull LogLevel defaultLogLevel,
+			@Nullable Function<Header, String> headerConvertFunction, @Nullable Function<Header, String> partHeaderConvertFunction,
+			@Nullable Function<Cookie, String> cookieConvertFunction, @Nullable Function<String, String> uriConverterFunction,
+			@Nullable Function<Param, String> paramConverter) {
+		super(defaultLogLevel,
+				headerConvertFunction,
+				partHeaderConvertFunction,
+				cookieConvertFunction,
+				uriConverterFunction,
+				paramConverter
+		);
+	}
+
+	/**
+	 * Create OKHTTP3 network Interceptor with the log level.
+	 *
+	 * @param defaultLogLevel log level on which OKHTTP3 requests/responses will appear on Report Portal
+	 */
+	public ReportPortalOkHttp3NetworkInterceptor(@Nonnull LogLevel defaultLogLevel) {
+		super(defaultLogLevel);
+	}
+
+	/**
+	 * Register the interceptor as a network interceptor of the given client builder.
+	 *
+	 * @param builder client builder
+	 * @return the same builder
+	 */
+	@Nonnull
+	public OkHttpClient.Builder install(@Nonnull OkHttpClient.Builder builder) {
+		return builder.addNetworkInterceptor(this);
+	}
+
+	/**
+	 * @return number of calls whose hops are tracked and not yet collected
+	 */
+	public int size() {
+		return hops.size();
+	}
+
+	@Nullable
+	@Override
+	protected WireStats startHop(@Nonnull Chain chain) {
+		if (chain.connection() == null) {
+			// Application interceptors have no connection, there is nothing on the wire to measure yet
+			return null;
+		}
+		int hop = hops.computeIfAbsent(chain.call(), c -> new AtomicInteger()).incrementAndGet();
+		return new WireStats(hop, chain.request());
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3;
+
+import com.epam.reportportal.formatting.http.Constants;
+import com.epam.reportportal.okhttp3.support.BatchScheduler;
+import com.epam.reportportal.okhttp3.support.HttpEntityFactory;
+import com.epam.reportportal.okhttp3.support.SamplingPolicy;
+import com.epam.reportportal.service.LoggingContext;
+import okhttp3.*;
+import okio.ByteString;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WebSocketListener} wrapper which logs WebSocket frames with the log level of the given
+ * {@link ReportPortalOkHttp3LoggingInterceptor}. The upgrade handshake itself is logged by the interceptor as soon as
+ * the <code>101</code> response arrives. Frames are collected into batches, which are logged every N frames, every T
+ * milliseconds by a shared timer, see {@link BatchScheduler}, and when the socket is closed or fails. Incoming frames
+ * are logged by the listener, outgoing ones only if sent through the socket returned by {@link #wrap(WebSocket)}:
+ * <pre>
+ * ReportPortalOkHttp3WebSocketListener listener = new ReportPortalOkHttp3WebSocketListener(interceptor, myListener);
+ * WebSocket webSocket = listener.wrap(client.newWebSocket(request, listener));
+ * </pre>
+ * Entries are bound to the test item which was active when the listener was created, and are emitted in the order of
+ * frames. Frames skipped by the sampling policy are counted in the next batch, or in an entry of their own if no frame
+ * of the window was sampled.
+ * <p>
+ * Frame payloads are logged as they are, cut to the payload size limit, and don't go through the formatter, converters
+ * and prettifiers of the interceptor: those format one request or response per entry, while a batch holds many frames
+ * of both directions, one line each.
+ */
+public class ReportPortalOkHttp3WebSocketListener extends WebSocketListener {
+
+	public static final String FRAMES_TAG = "**WebSocket frames %d-%d**";
+	public static final String SKIPPED_TAG = "**WebSocket frames**";
+	public static final String SKIPPED_FRAMES = "%d frames skipped";
+	public static final String BINARY_FRAME = "[%d bytes] %s";
+	public static final String INCOMING_PREFIX = "<<< ";
+	public static final String OUTGOING_PREFIX = ">>> ";
+	public static final int DEFAULT_BATCH_SIZE = 20;
+	public static final long DEFAULT_BATCH_INTERVAL = 1000;
+	public static final int DEFAULT_MAX_PAYLOAD = 1024;
+
+	private final ReportPortalOkHttp3LoggingInterceptor interceptor;
+	private final WebSocketListener delegate;
+	private final LoggingContext context;
+
+	private volatile int batchSize = DEFAULT_BATCH_SIZE;
+	private volatile long batchInterval = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BATCH_INTERVAL);
+	private volatile int maxPayload = DEFAULT_MAX_PAYLOAD;
+	private volatile SamplingPolicy samplingPolicy;
+
+	// Guarded by this, entries are emitted under the lock to keep them in order
+	private List<String> frames = new ArrayList<>();
+	private long logged;
+	private long skipped;
+	private long lastBatch = System.nanoTime();
+	private ScheduledFuture<?> timer;
+	private boolean closed;
+
+	/**
+	 * @param interceptor interceptor whose log level is used
+	 * @param delegate    listener to pass all events to
+	 */
+	public ReportPortalOkHttp3WebSocketListener(@Nonnull ReportPortalOkHttp3LoggingInterceptor interceptor,
+			@Nonnull WebSocketListener delegate) {
+		this.interceptor = interceptor;
+		this.delegate = delegate;
+		this.context = LoggingContext.context();
+	}
+
+	/**
+	 * Set how frames are batched into log entries.
+	 *
+	 * @param batchSize     maximum number of frames in a log entry
+	 * @param batchInterval maximum time in milliseconds a frame waits to be logged, <code>0</code> to log a batch on
+	 *                      arrival of every frame
+	 * @return self
+	 */
+	public ReportPortalOkHttp3WebSocketListener setBatch(int batchSize, long batchInterval) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+		}
+		if (batchInterval < 0) {
+			throw new IllegalArgumentException("Batch interval should not be negative: " + batchInterval);
+		}
+		synchronized (this) {
+			this.batchSize = batchSize;
+			this.batchInterval = TimeUnit.MILLISECONDS.toNanos(batchInterval);
+			// The timer is started again with the new interval on the next frame
+			cancelTimer();
+		}
+		return this;
+	}
+
+	/**
+	 * Set maximum number of chars of a text frame and bytes of a binary frame to log, the rest is omitted.
+	 *
+	 * @param maxPayload maximum payload size to log
+	 * @return self
+	 */
+	public ReportPortalOkHttp3WebSocketListener setMaxPayload(int maxPayload) {
+		if (maxPayload < 0) {
+			throw new IllegalArgumentException("Maximum payload size should not be negative: " + maxPayload);
+		}
+		this.maxPayload = maxPayload;
+		return this;
+	}
+
+	/**
+	 * Set a sampling policy for frames of high-rate sockets, e.g. {@link SamplingPolicy#rateLimit(double, int)}. The
+	 * policy is called with the socket's original request for every frame, skipped frames are only counted.
+	 *
+	 * @param samplingPolicy sampling policy or <code>null</code> to log every frame
+	 * @return self
+	 */
+	public ReportPortalOkHttp3WebSocketListener setSamplingPolicy(@Nullable SamplingPolicy samplingPolicy) {
+		this.samplingPolicy = samplingPolicy;
+		return this;
+	}
+
+	/**
+	 * Wrap the socket to log outgoing frames as well.
+	 *
+	 * @param webSocket socket created with this listener
+	 * @return socket which logs sent frames
+	 */
+	@Nonnull
+	public WebSocket wrap(@Nonnull WebSocket webSocket) {
+		return new LoggingWebSocket(webSocket);
+	}
+
+	@Nonnull
+	private String formatText(@Nonnull String text) {
+		int max = maxPayload;
+		if (text.length() <= max) {
+			return text;
+		}
+		return text.substring(0, max) + Constants.LINE_DELIMITER + String.format(
+				HttpEntityFactory.TRUNCATION_MARKER,
+				text.length() - max
+		);
+	}
+
+	@Nonnull
+	private String formatBinary(@Nonnull ByteString bytes) {
+		int max = maxPayload;
+		String hex = bytes.size() <= max ? bytes.hex() : bytes.substring(0, max).hex() + "...";
+		return String.format(BINARY_FRAME, bytes.size(), hex);
+	}
+
+	@Nullable
+	private String takeBatch() {
+		if (frames.isEmpty()) {
+			if (skipped == 0) {
+				return null;
+			}
+			String message = SKIPPED_TAG + Constants.LINE_DELIMITER + String.format(SKIPPED_FRAMES, skipped);
+			skipped = 0;
+			lastBatch = System.nanoTime();
+			return message;
+		}
+		StringBuilder message = new StringBuilder(String.format(FRAMES_TAG, logged + 1, logged + frames.size()));
+		if (skipped > 0) {
+			message.append(Constants.LINE_DELIMITER).append(String.format(SKIPPED_FRAMES, skipped));
+		}
+		message.append(Constants.LINE_DELIMITER).append("```");
+		frames.forEach(f -> message.append(Constants.LINE_DELIMITER).append(f));
+		message.append(Constants.LINE_DELIMITER).append("```");
+		logged += frames.size();
+		skipped = 0;
+		frames = new ArrayList<>();
+		lastBatch = System.nanoTime();
+		return message.toString();
+	}
+
+	private void emit(@Nullable String batch) {
+		if (batch != null) {
+			interceptor.emitText(context, batch);
+		}
+	}
+
+	private void cancelTimer() {
+		if (timer != null) {
+			timer.cancel(false);
+			timer = null;
+		}
+	}
+
+	private synchronized void flushIfDue() {
+		if (!closed && System.nanoTime() - lastBatch >= batchInterval) {
+			emit(takeBatch());
+		}
+	}
+
+	private void frame(@Nonnull WebSocket webSocket, @Nonnull String prefix, @Nonnull Object payload) {
+		SamplingPolicy policy = samplingPolicy;
+		boolean sampled = policy == null || policy.sample(webSocket.request());
+		String frame = null;
+		if (sampled) {
+			frame = prefix + (payload instanceof ByteString ? formatBinary((ByteString) payload) : formatText((String) payload));
+		}
+		synchronized (this) {
+			if (frame != null) {
+				frames.add(frame);
+			} else {
+				skipped++;
+			}
+			if (frames.size() >= batchSize || System.nanoTime() - lastBatch >= batchInterval) {
+				emit(takeBatch());
+			}
+			long interval = TimeUnit.NANOSECONDS.toMillis(batchInterval);
+			if (timer == null && !closed && interval > 0) {
+				timer = BatchScheduler.schedule(this, ReportPortalOkHttp3WebSocketListener::flushIfDue, interval);
+			}
+		}
+	}
+
+	private synchronized void close(@Nonnull String event) {
+		closed = true;
+		cancelTimer();
+		emit(takeBatch());
+		interceptor.emitText(context, event);
+	}
+
+	@Override
+	public void onOpen(@Nonnull WebSocket webSocket, @Nonnull Response response) {
+		delegate.onOpen(webSocket, response);
+	}
+
+	@Override
+	public void onMessage(@Nonnull WebSocket webSocket, @Nonnull String text) {
+		frame(webSocket, INCOMING_PREFIX, text);
+		delegate.onMessage(webSocket, text);
+	}
+
+	@Override
+	public void onMessage(@Nonnull WebSocket webSocket, @Nonnull ByteString bytes) {
+		frame(webSocket, INCOMING_PREFIX, bytes);
+		delegate.onMessage(webSocket, bytes);
+	}
+
+	@Override
+	public void onClosing(@Nonnull WebSocket webSocket, int code, @Nonnull String reason) {
+		delegate.onClosing(webSocket, code, reason);
+	}
+
+	@Override
+	public void onClosed(@Nonnull WebSocket webSocket, int code, @Nonnull String reason) {
+		close("**WebSocket closed**" + Constants.LINE_DELIMITER + code + (reason.isEmpty() ? "" : " " + reason));
+		delegate.onClosed(webSocket, code, reason);
+	}
+
+	@Override
+	public void onFailure(@Nonnull WebSocket webSocket, @Nonnull Throwable t, @Nullable Response response) {
+		close("**WebSocket failed**" + Constants.LINE_DELIMITER + t);
+		delegate.onFailure(webSocket, t, response);
+	}
+
+	private class LoggingWebSocket implements WebSocket {
+		private final WebSocket webSocket;
+
+		LoggingWebSocket(@Nonnull WebSocket webSocket) {
+			this.webSocket = webSocket;
+		}
+
+		@Nonnull
+		@Override
+		public Request request() {
+			return webSocket.request();
+		}
+
+		@Override
+		public long queueSize() {
+			return webSocket.queueSize();
+		}
+
+		@Override
+		public boolean send(@Nonnull String text) {
+			boolean sent = webSocket.send(text);
+			if (sent) {
+				frame(webSocket, OUTGOING_PREFIX, text);
+			}
+			return sent;
+		}
+
+		@Override
+		public boolean send(@Nonnull ByteString bytes) {
+			boolean sent = webSocket.send(bytes);
+			if (sent) {
+				frame(webSocket, OUTGOING_PREFIX, bytes);
+			}
+			return sent;
+		}
+
+		@Override
+		public boolean close(int code, @Nullable String reason) {
+			return webSocket.close(code, reason);
+		}
+
+		@Override
+		public void cancel() {
+			webSocket.cancel();
+		}
+	}
+}
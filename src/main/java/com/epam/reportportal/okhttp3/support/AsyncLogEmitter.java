@@ -0,0 +1,218 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue with a pool of worker threads which format and emit log entries off the HTTP call thread. The queue
+ * is drained on {@link #close()}. Tasks which are dropped on overflow or left in the queue after the shutdown timeout
+ * are discarded, so they can release what they hold, e.g. temporary files of body captures.
+ * <p>
+ * As a last resort the queue is also drained by a JVM shutdown hook. The JVM runs shutdown hooks concurrently and in no
+ * particular order, so the ReportPortal client may finish the launch while the queue is still being drained, and the
+ * entries emitted after that are lost. Call {@link #close()} explicitly before the launch is finished, e.g. in an
+ * <code>&#64;AfterAll</code> method or a test framework listener, to have every entry reported.
+ */
+public class AsyncLogEmitter implements Closeable {
+
+	public static final int DEFAULT_WORKERS = 1;
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * What to do with a new log entry if the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Drop the entry and increase the drop counter
+		 */
+		DROP,
+		/**
+		 * Block the calling thread until there is space in the queue
+		 */
+		BLOCK
+	}
+
+	private static final AtomicInteger EMITTER_COUNTER = new AtomicInteger();
+	// How often a blocked submitter checks whether the emitter was closed
+	private static final long BLOCK_POLL_INTERVAL = 50;
+
+	private final ThreadPoolExecutor executor;
+	private final long shutdownTimeout;
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread shutdownHook;
+
+	/**
+	 * Create an asynchronous emitter.
+	 *
+	 * @param workers         number of worker threads
+	 * @param queueCapacity   maximum number of entries waiting for formatting
+	 * @param overflowPolicy  what to do with new entries if the queue is full
+	 * @param shutdownTimeout maximum time in milliseconds to wait for the queue to drain on close
+	 */
+	public AsyncLogEmitter(int workers, int queueCapacity, @Nonnull OverflowPolicy overflowPolicy, long shutdownTimeout) {
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Number of workers should be positive: " + workers);
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity should be positive: " + queueCapacity);
+		}
+		if (shutdownTimeout <= 0) {
+			throw new IllegalArgumentException("Shutdown timeout should be positive: " + shutdownTimeout);
+		}
+		this.shutdownTimeout = shutdownTimeout;
+		String namePrefix = "rp-okhttp3-logger-" + EMITTER_COUNTER.incrementAndGet() + "-";
+		AtomicInteger threadCounter = new AtomicInteger();
+		executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+			Thread t = new Thread(r, namePrefix + threadCounter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}, overflowPolicy == OverflowPolicy.BLOCK ? this::block : this::drop);
+		shutdownHook = new Thread(this::shutdown, namePrefix + "shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	public AsyncLogEmitter(int workers, int queueCapacity, @Nonnull OverflowPolicy overflowPolicy) {
+		this(workers, queueCapacity, overflowPolicy, DEFAULT_SHUTDOWN_TIMEOUT);
+	}
+
+	public AsyncLogEmitter() {
+		this(DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+	}
+
+	private void discard(@Nonnull Runnable task) {
+		dropped.incrementAndGet();
+		if (task instanceof DiscardableTask) {
+			((DiscardableTask) task).discard();
+		}
+	}
+
+	private void block(Runnable task, ThreadPoolExecutor executor) {
+		BlockingQueue<Runnable> queue = executor.getQueue();
+		try {
+			while (!queue.offer(task, BLOCK_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if (executor.isShutdown()) {
+					task.run();
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			discard(task);
+			return;
+		}
+		// The workers may have drained the queue and exited before the task was put, then nobody else will run it
+		if (executor.isShutdown() && queue.remove(task)) {
+			task.run();
+		}
+	}
+
+	private void drop(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			task.run();
+			return;
+		}
+		discard(task);
+	}
+
+	/**
+	 * Put a formatting task into the queue. If the emitter is already closed the task is executed on the calling
+	 * thread.
+	 *
+	 * @param task task to execute
+	 */
+	public void submit(@Nonnull Runnable task) {
+		submit(task, null);
+	}
+
+	/**
+	 * Put a formatting task into the queue, see {@link #submit(Runnable)}.
+	 *
+	 * @param task      task to execute
+	 * @param onDiscard action to release resources held by the task if it's dropped or never executed
+	 */
+	public void submit(@Nonnull Runnable task, @Nullable Runnable onDiscard) {
+		executor.execute(onDiscard == null ? task : new DiscardableTask(task, onDiscard));
+	}
+
+	/**
+	 * @return number of entries dropped due to queue overflow
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of entries waiting in the queue
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+
+	private void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+				executor.shutdownNow().forEach(this::discard);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow().forEach(this::discard);
+		}
+	}
+
+	/**
+	 * Stop accepting new entries and wait until all queued entries are emitted, but not longer than the shutdown
+	 * timeout. Entries submitted after that are emitted on the calling thread. Call it before the launch is finished,
+	 * the shutdown hook gives no such guarantee.
+	 */
+	@Override
+	public void close() {
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException ignore) {
+			// JVM is already shutting down, the hook will do the job
+			return;
+		}
+		shutdown();
+	}
+
+	private static class DiscardableTask implements Runnable {
+		private final Runnable task;
+		private final Runnable onDiscard;
+
+		DiscardableTask(@Nonnull Runnable task, @Nonnull Runnable onDiscard) {
+			this.task = task;
+			this.onDiscard = onDiscard;
+		}
+
+		@Override
+		public void run() {
+			task.run();
+		}
+
+		void discard() {
+			onDiscard.run();
+		}
+	}
+}
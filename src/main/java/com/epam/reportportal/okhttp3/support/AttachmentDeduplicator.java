@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.LoggingContext;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers SHA-256 hashes of binary bodies attached to log entries, so a repeated payload is attached only once per
+ * test item or launch, and later entries refer to it by its hash instead of uploading it again. Hashes are kept per
+ * scope in a bounded LRU set, scopes are held weakly and forgotten with their test item or launch.
+ */
+public class AttachmentDeduplicator {
+
+	public static final String DUPLICATE_ATTACHMENT = "[%d bytes, SHA-256: %s, the same as attached earlier]";
+	public static final int DEFAULT_MAX_HASHES = 1000;
+
+	public enum Scope {
+		/**
+		 * A payload is attached once per test item
+		 */
+		ITEM,
+		/**
+		 * A payload is attached once per launch
+		 */
+		LAUNCH
+	}
+
+	private final Scope scope;
+	private final int maxHashes;
+	private final Map<Object, Set<String>> hashes = new WeakHashMap<>();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final AtomicLong savedBytes = new AtomicLong();
+
+	/**
+	 * @param scope     where a payload is attached only once
+	 * @param maxHashes maximum number of hashes to remember per scope, the least recently seen ones are forgotten
+	 */
+	public AttachmentDeduplicator(@Nonnull Scope scope, int maxHashes) {
+		if (maxHashes <= 0) {
+			throw new IllegalArgumentException("Maximum number of hashes should be positive: " + maxHashes);
+		}
+		this.scope = scope;
+		this.maxHashes = maxHashes;
+	}
+
+	public AttachmentDeduplicator(@Nonnull Scope scope) {
+		this(scope, DEFAULT_MAX_HASHES);
+	}
+
+	public AttachmentDeduplicator() {
+		this(Scope.ITEM);
+	}
+
+	@Nonnull
+	private Object getScopeKey(@Nullable LoggingContext context) {
+		Object key;
+		if (Scope.LAUNCH == scope) {
+			key = Launch.currentLaunch();
+		} else {
+			key = context == null ? LoggingContext.context() : context;
+		}
+		// Outside of a launch all payloads share one scope
+		return key == null ? this : key;
+	}
+
+	@Nonnull
+	private Set<String> newHashSet() {
+		return Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > maxHashes;
+			}
+		});
+	}
+
+	/**
+	 * Check if a payload was already attached in the current scope. The payload is not remembered by the check, call
+	 * {@link #remember} once it's attached in full.
+	 *
+	 * @param context logging context of the entry, or <code>null</code> to use the context of the current thread
+	 * @param sha256  payload hash
+	 * @param size    payload size in bytes
+	 * @return <code>true</code> if the payload was attached before and should not be attached again
+	 */
+	public boolean isDuplicate(@Nullable LoggingContext context, @Nonnull String sha256, long size) {
+		Object key = getScopeKey(context);
+		boolean duplicate;
+		synchronized (hashes) {
+			Set<String> scopeHashes = hashes.get(key);
+			duplicate = scopeHashes != null && scopeHashes.contains(sha256);
+			if (duplicate) {
+				// Adding an existing hash to the access-ordered set marks it as recently seen
+				scopeHashes.add(sha256);
+			}
+		}
+		if (duplicate) {
+			duplicates.incrementAndGet();
+			savedBytes.addAndGet(size);
+		}
+		return duplicate;
+	}
+
+	/**
+	 * Remember a payload attached in the current scope, so later entries with the same payload refer to it.
+	 *
+	 * @param context logging context of the entry, or <code>null</code> to use the context of the current thread
+	 * @param sha256  payload hash
+	 */
+	public void remember(@Nullable LoggingContext context, @Nonnull String sha256) {
+		Object key = getScopeKey(context);
+		synchronized (hashes) {
+			hashes.computeIfAbsent(key, k -> newHashSet()).add(sha256);
+		}
+	}
+
+	/**
+	 * @return number of payloads which were not attached again
+	 */
+	public long getDuplicates() {
+		return duplicates.get();
+	}
+
+	/**
+	 * @return number of bytes which were not attached again
+	 */
+	public long getSavedBytes() {
+		return savedBytes.get();
+	}
+
+	/**
+	 * Forget all hashes, so every payload is attached again.
+	 */
+	public void clear() {
+		synchronized (hashes) {
+			hashes.clear();
+		}
+	}
+}
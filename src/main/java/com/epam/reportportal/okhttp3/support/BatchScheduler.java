@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Shared daemon timer which hands over partial batches of long-lived streams and WebSocket frames when no new data
+ * arrives. Owners are referenced weakly, so a stream which is dropped without being closed does not keep its task
+ * scheduled forever.
+ */
+public final class BatchScheduler {
+
+	private static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+		Thread t = new Thread(r, "rp-okhttp3-batch-flush");
+		t.setDaemon(true);
+		return t;
+	});
+
+	static {
+		EXECUTOR.setRemoveOnCancelPolicy(true);
+	}
+
+	private BatchScheduler() {
+	}
+
+	/**
+	 * Call the flush action of the owner every interval until the returned future is cancelled or the owner is garbage
+	 * collected. The action should not capture the owner, otherwise the owner is never collected.
+	 *
+	 * @param owner    object to flush
+	 * @param flush    flush action, called on the timer thread
+	 * @param interval interval in milliseconds, should be positive
+	 * @param <T>      owner type
+	 * @return future to cancel the task with
+	 */
+	@Nonnull
+	public static <T> ScheduledFuture<?> schedule(@Nonnull T owner, @Nonnull Consumer<? super T> flush, long interval) {
+		WeakReference<T> reference = new WeakReference<>(owner);
+		AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+		ScheduledFuture<?> future = EXECUTOR.scheduleWithFixedDelay(() -> {
+			T o = reference.get();
+			if (o == null) {
+				ScheduledFuture<?> task = self.get();
+				if (task != null) {
+					task.cancel(false);
+				}
+				return;
+			}
+			try {
+				flush.accept(o);
+			} catch (RuntimeException ignore) {
+				// An exception would stop the periodic task, the next batch will try again
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+		self.set(future);
+		return future;
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.*;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Bounded copy of an HTTP body. Captures bytes up to the given limit and only counts the rest, so the memory used by
+ * the logger does not depend on the payload size. Once the captured data grows over the spill threshold it's moved to
+ * a temporary file, which is deleted when the data is read or the capture is closed. If the file can't be created, the
+ * data stays in memory. Optionally the capture hashes the whole body, including omitted bytes, to identify large
+ * payloads without keeping them.
+ */
+public class BodyCapture implements Closeable {
+
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private final Buffer buffer = new Buffer();
+	private final long limit;
+	private final long spillThreshold;
+	private long captured;
+	private long total;
+	private boolean failed;
+	private boolean spillFailed;
+	private Path file;
+	private BufferedSink fileSink;
+	private MessageDigest digest;
+	private String sha256;
+	private boolean notFullyRead;
+	private long expectedLength = -1;
+
+	/**
+	 * @param limit          maximum number of bytes to capture
+	 * @param spillThreshold number of captured bytes after which the capture is moved to a temporary file
+	 */
+	public BodyCapture(long limit, long spillThreshold) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("Capture limit should not be negative: " + limit);
+		}
+		if (spillThreshold < 0) {
+			throw new IllegalArgumentException("Spill threshold should not be negative: " + spillThreshold);
+		}
+		this.limit = limit;
+		this.spillThreshold = spillThreshold;
+	}
+
+	public BodyCapture(long limit) {
+		this(limit, UNLIMITED);
+	}
+
+	public BodyCapture() {
+		this(UNLIMITED);
+	}
+
+	/**
+	 * Hash all bytes written to the capture with SHA-256, regardless of the capture limit. Bytes are hashed as they are
+	 * written, i.e. before any content decoding.
+	 *
+	 * @return self
+	 */
+	@Nonnull
+	public BodyCapture hashing() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+		return this;
+	}
+
+	/**
+	 * Add bytes to the hash of the body, if the capture is {@link #hashing()}.
+	 *
+	 * @param source    buffer to hash bytes of
+	 * @param offset    offset of the first byte to hash in the source buffer
+	 * @param byteCount number of bytes to hash
+	 */
+	protected void updateDigest(@Nonnull Buffer source, long offset, long byteCount) {
+		if (digest == null || byteCount <= 0) {
+			return;
+		}
+		try (Buffer.UnsafeCursor cursor = source.readUnsafe()) {
+			long position = offset;
+			long end = offset + byteCount;
+			while (position < end) {
+				cursor.seek(position);
+				int count = (int) Math.min(cursor.end - cursor.start, end - position);
+				digest.update(cursor.data, cursor.start, count);
+				position += count;
+			}
+		}
+	}
+
+	/**
+	 * Create a temporary file to move captured data to.
+	 *
+	 * @return path to the file
+	 * @throws IOException if the file can't be created
+	 */
+	@Nonnull
+	protected Path createSpillFile() throws IOException {
+		return Files.createTempFile("rp-okhttp3-", ".capture");
+	}
+
+	private static void delete(@Nonnull Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignore) {
+			// temporary directory is cleaned up by OS
+		}
+	}
+
+	private void spill() throws IOException {
+		Path spillFile = createSpillFile();
+		BufferedSink spillSink = null;
+		try {
+			spillSink = Okio.buffer(Okio.sink(spillFile));
+			// Write a copy, so the captured data stays in memory if the file can't be written
+			spillSink.writeAll(buffer.copy());
+			spillSink.flush();
+		} catch (IOException e) {
+			if (spillSink != null) {
+				try {
+					spillSink.close();
+				} catch (IOException ignore) {
+					// nothing to do, the file is deleted anyway
+				}
+			}
+			delete(spillFile);
+			throw e;
+		}
+		buffer.clear();
+		file = spillFile;
+		fileSink = spillSink;
+	}
+
+	/**
+	 * Copy bytes from the given buffer without consuming them. Okio segments of the source are shared with the
+	 * capture, not copied byte by byte.
+	 *
+	 * @param source    buffer to copy from
+	 * @param offset    offset of the first byte to copy in the source buffer
+	 * @param byteCount number of bytes to copy
+	 */
+	public void write(@Nonnull Buffer source, long offset, long byteCount) {
+		updateDigest(source, offset, byteCount);
+		append(source, offset, byteCount);
+	}
+
+	/**
+	 * Copy bytes like {@link #write(Buffer, long, long)} does, but without hashing them.
+	 *
+	 * @param source    buffer to copy from
+	 * @param offset    offset of the first byte to copy in the source buffer
+	 * @param byteCount number of bytes to copy
+	 */
+	protected void append(@Nonnull Buffer source, long offset, long byteCount) {
+		total += byteCount;
+		long toCopy = failed ? 0 : Math.min(byteCount, limit - captured);
+		if (toCopy <= 0) {
+			return;
+		}
+		source.copyTo(buffer, offset, toCopy);
+		if (fileSink != null) {
+			try {
+				fileSink.write(buffer, buffer.size());
+			} catch (IOException e) {
+				// Capture should never break the HTTP call. Part of the data is lost with the file, so nothing is kept
+				// and the entry says the capture failed.
+				failed = true;
+				captured = 0;
+				buffer.clear();
+				closeFile();
+				return;
+			}
+		} else if (!spillFailed && captured + toCopy > spillThreshold) {
+			try {
+				spill();
+			} catch (IOException e) {
+				// Capture should never break the HTTP call, keep the data in memory up to the capture limit
+				spillFailed = true;
+			}
+		}
+		captured += toCopy;
+	}
+
+	/**
+	 * @return a {@link Sink} which consumes everything written to it and captures it into this object
+	 */
+	@Nonnull
+	public Sink sink() {
+		return new Sink() {
+			@Override
+			public void write(@Nonnull Buffer source, long byteCount) {
+				BodyCapture.this.write(source, 0, byteCount);
+				source.skip(byteCount);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Nonnull
+			@Override
+			public Timeout timeout() {
+				return Timeout.NONE;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	public long getCaptured() {
+		return captured;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return number of bytes written to the capture as is, before any content decoding
+	 */
+	public long getEncodedTotal() {
+		return total;
+	}
+
+	public long getOmitted() {
+		return total - captured;
+	}
+
+	public boolean isTruncated() {
+		return total > captured || notFullyRead;
+	}
+
+	/**
+	 * @return <code>true</code> if the captured data was lost because its temporary file couldn't be written
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	/**
+	 * Mark the capture as incomplete, because the body was closed before it was read to the end.
+	 *
+	 * @param expectedLength expected body length in bytes, as written to the wire, or <code>-1</code> if unknown
+	 */
+	public void setNotFullyRead(long expectedLength) {
+		notFullyRead = true;
+		this.expectedLength = expectedLength;
+	}
+
+	/**
+	 * @return <code>true</code> if the body was closed before it was read to the end
+	 */
+	public boolean isNotFullyRead() {
+		return notFullyRead;
+	}
+
+	/**
+	 * @return text to add to a log entry whose body capture is truncated
+	 */
+	@Nonnull
+	public String getTruncationMarker() {
+		if (failed) {
+			return String.format(HttpEntityFactory.CAPTURE_FAILED_MARKER, getOmitted());
+		}
+		if (notFullyRead) {
+			return expectedLength < 0 ?
+					String.format(HttpEntityFactory.NOT_FULLY_READ_UNKNOWN_LENGTH_MARKER, getEncodedTotal()) :
+					String.format(HttpEntityFactory.NOT_FULLY_READ_MARKER, getEncodedTotal(), expectedLength);
+		}
+		return String.format(HttpEntityFactory.TRUNCATION_MARKER, getOmitted());
+	}
+
+	/**
+	 * Finish hashing and get the hash of the whole body. Nothing should be written to the capture after this call.
+	 *
+	 * @return hex-encoded SHA-256 hash or <code>null</code> if the capture is not {@link #hashing()}
+	 */
+	@Nullable
+	public String getSha256() {
+		if (sha256 == null && digest != null) {
+			sha256 = ByteString.of(digest.digest()).hex();
+		}
+		return sha256;
+	}
+
+	/**
+	 * @return <code>true</code> if the captured data was moved to a temporary file
+	 */
+	public boolean isSpilled() {
+		return file != null;
+	}
+
+	@Nullable
+	public Path getFile() {
+		return file;
+	}
+
+	private void closeFile() {
+		if (fileSink != null) {
+			try {
+				fileSink.close();
+			} catch (IOException ignore) {
+				// nothing to do, the file is deleted anyway
+			}
+			fileSink = null;
+		}
+		if (file != null) {
+			delete(file);
+			file = null;
+		}
+	}
+
+	/**
+	 * Read captured data, the capture is consumed and its temporary file is deleted. In-memory data is copied out of
+	 * its segments once, and each segment is recycled right after it's copied. Spilled data is read from the file
+	 * straight into the result, so reading a body costs one copy of it either way.
+	 *
+	 * @return captured bytes
+	 */
+	@Nonnull
+	public byte[] readByteArray() {
+		if (fileSink == null) {
+			return buffer.readByteArray();
+		}
+		try {
+			fileSink.flush();
+			return Files.readAllBytes(file);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading captured body", e);
+		} finally {
+			closeFile();
+		}
+	}
+
+	/**
+	 * Read captured data as a string, the capture is consumed and its temporary file is deleted. The data is decoded
+	 * incrementally, see {@link TextBodyDecoder}.
+	 *
+	 * @param charset charset to decode the data
+	 * @return captured text
+	 */
+	@Nonnull
+	public String readString(@Nonnull Charset charset) {
+		try {
+			if (fileSink == null) {
+				return TextBodyDecoder.decode(buffer, charset, buffer.size());
+			}
+			fileSink.flush();
+			try (BufferedSource fileSource = Okio.buffer(Okio.source(file))) {
+				return TextBodyDecoder.decode(fileSource, charset, captured);
+			} finally {
+				closeFile();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading captured body", e);
+		}
+	}
+
+	/**
+	 * Drop captured data and delete the temporary file, if any.
+	 */
+	@Override
+	public void close() {
+		buffer.clear();
+		closeFile();
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.formatting.http.Constants;
+import okhttp3.CipherSuite;
+import okhttp3.Connection;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.TlsVersion;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timings of a single HTTP call, recorded by an OkHttp event listener. Events of a call are delivered by one
+ * thread at a time, but timings may be read by another one, so all fields are volatile. Connection phases are summed
+ * over all attempts of the call, e.g. on retries and redirects, the time to first byte is measured for the last one.
+ * Connection details, i.e. protocol, remote address, TLS version and cipher suite, and whether the connection was
+ * reused from the pool, are those of the connection the last attempt acquired.
+ */
+public class CallTimings {
+
+	public static final String TIMINGS_TAG = "**Timings**";
+
+	private static final long NOT_SET = -1;
+
+	private volatile long callStart = NOT_SET;
+	private volatile long callEnd = NOT_SET;
+	private volatile long dnsStart = NOT_SET;
+	private volatile long dns;
+	private volatile long connectStart = NOT_SET;
+	private volatile long connect;
+	private volatile long secureConnectStart = NOT_SET;
+	private volatile long secureConnect;
+	private volatile long requestStart = NOT_SET;
+	private volatile long timeToFirstByte = NOT_SET;
+	private volatile boolean connecting;
+	private volatile Protocol protocol;
+	private volatile InetSocketAddress remoteAddress;
+	private volatile Handshake handshake;
+	private volatile boolean connectionReused;
+
+	public void callStart() {
+		callStart = System.nanoTime();
+	}
+
+	public void callEnd() {
+		callEnd = System.nanoTime();
+	}
+
+	public void dnsStart() {
+		dnsStart = System.nanoTime();
+	}
+
+	public void dnsEnd() {
+		if (dnsStart != NOT_SET) {
+			dns += System.nanoTime() - dnsStart;
+		}
+	}
+
+	public void connectStart() {
+		connectStart = System.nanoTime();
+		connecting = true;
+	}
+
+	public void connectEnd() {
+		if (connectStart != NOT_SET) {
+			connect += System.nanoTime() - connectStart;
+		}
+	}
+
+	public void secureConnectStart() {
+		secureConnectStart = System.nanoTime();
+	}
+
+	public void secureConnectEnd() {
+		if (secureConnectStart != NOT_SET) {
+			secureConnect += System.nanoTime() - secureConnectStart;
+		}
+	}
+
+	/**
+	 * Record details of the connection an attempt of the call acquired. The connection is reused if no connection was
+	 * established since the previous attempt.
+	 *
+	 * @param connection acquired connection
+	 */
+	public void connectionAcquired(@Nonnull Connection connection) {
+		protocol = connection.protocol();
+		remoteAddress = connection.route().socketAddress();
+		handshake = connection.handshake();
+		connectionReused = !connecting;
+		connecting = false;
+	}
+
+	public void requestStart() {
+		requestStart = System.nanoTime();
+	}
+
+	public void responseStart() {
+		if (requestStart != NOT_SET) {
+			timeToFirstByte = System.nanoTime() - requestStart;
+		}
+	}
+
+	/**
+	 * @return time spent on DNS lookups, in nanoseconds
+	 */
+	public long getDns() {
+		return dns;
+	}
+
+	/**
+	 * @return time spent on connection establishment, including TLS handshakes, in nanoseconds
+	 */
+	public long getConnect() {
+		return connect;
+	}
+
+	/**
+	 * @return time spent on TLS handshakes, in nanoseconds
+	 */
+	public long getSecureConnect() {
+		return secureConnect;
+	}
+
+	/**
+	 * @return protocol of the acquired connection, or <code>null</code> if no connection was acquired yet
+	 */
+	@Nullable
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	/**
+	 * @return address of the server or proxy the acquired connection goes to, or <code>null</code> if no connection
+	 * was acquired yet
+	 */
+	@Nullable
+	public InetSocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	/**
+	 * @return TLS version of the acquired connection, or <code>null</code> if it's not secure or was not acquired yet
+	 */
+	@Nullable
+	public TlsVersion getTlsVersion() {
+		Handshake h = handshake;
+		return h == null ? null : h.tlsVersion();
+	}
+
+	/**
+	 * @return cipher suite of the acquired connection, or <code>null</code> if it's not secure or was not acquired yet
+	 */
+	@Nullable
+	public CipherSuite getCipherSuite() {
+		Handshake h = handshake;
+		return h == null ? null : h.cipherSuite();
+	}
+
+	/**
+	 * @return <code>true</code> if the acquired connection was taken from the pool
+	 */
+	public boolean isConnectionReused() {
+		return connectionReused;
+	}
+
+	/**
+	 * @return time from the start of request writing to the start of response headers, in nanoseconds, or
+	 * <code>-1</code> if no response was received yet
+	 */
+	public long getTimeToFirstByte() {
+		return timeToFirstByte;
+	}
+
+	/**
+	 * @return total call duration in nanoseconds, up to now if the call has not ended yet, or <code>-1</code> if the
+	 * call has not started
+	 */
+	public long getTotal() {
+		long start = callStart;
+		if (start == NOT_SET) {
+			return NOT_SET;
+		}
+		long end = callEnd;
+		return (end == NOT_SET ? System.nanoTime() : end) - start;
+	}
+
+	private static void append(@Nonnull StringBuilder builder, @Nonnull String name, @Nonnull String value) {
+		builder.append(Constants.LINE_DELIMITER).append(name).append(": ").append(value);
+	}
+
+	private static void append(@Nonnull StringBuilder builder, @Nonnull String name, long nanos) {
+		builder.append(Constants.LINE_DELIMITER)
+				.append(name)
+				.append(": ")
+				.append(TimeUnit.NANOSECONDS.toMillis(nanos))
+				.append(" ms");
+	}
+
+	/**
+	 * Format timings and connection details to attach to a log entry. Connection phases are skipped if a pooled
+	 * connection was used.
+	 *
+	 * @return formatted timings
+	 */
+	@Nonnull
+	public String format() {
+		StringBuilder builder = new StringBuilder(TIMINGS_TAG);
+		Protocol p = protocol;
+		if (p != null) {
+			append(builder, "Protocol", p.toString());
+			InetSocketAddress remote = remoteAddress;
+			InetAddress address = remote.getAddress();
+			append(builder, "Remote address", (address == null ? remote.getHostString() : address.getHostAddress()) + ":"
+					+ remote.getPort());
+			Handshake h = handshake;
+			if (h != null) {
+				append(builder, "TLS version", h.tlsVersion().javaName());
+				append(builder, "Cipher suite", h.cipherSuite().javaName());
+			}
+			append(builder, "Connection", connectionReused ? "reused" : "new");
+		}
+		if (connect > 0) {
+			append(builder, "DNS", dns);
+			append(builder, "Connect", connect);
+			if (secureConnect > 0) {
+				append(builder, "TLS", secureConnect);
+			}
+		}
+		long ttfb = timeToFirstByte;
+		if (ttfb != NOT_SET) {
+			append(builder, "TTFB", ttfb);
+		}
+		long total = getTotal();
+		if (total != NOT_SET) {
+			append(builder, "Total", total);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return format();
+	}
+}
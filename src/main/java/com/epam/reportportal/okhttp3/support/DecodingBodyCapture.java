@@ -0,0 +1,311 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.Buffer;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link BodyCapture} for bodies with <code>gzip</code> or <code>deflate</code> content encoding. Encoded bytes are
+ * decompressed as they are written, and decompression stops as soon as the capture limit is reached, so only the
+ * captured prefix of a body is ever decompressed. The caller's bytes are only copied from, never changed. A gzip
+ * body of several concatenated members, see RFC 1952, is decoded member by member, like
+ * {@link java.util.zip.GZIPInputStream} does.
+ * <p>
+ * The inflater reads encoded bytes right from the segments of the pending buffer and writes decoded bytes right into
+ * a segment, which is then handed over to the capture without copying, so no intermediate arrays are involved.
+ * <p>
+ * Once decompression stops, the rest of the body is counted in encoded bytes, since its decoded size is unknown. A
+ * {@link #hashing()} capture hashes the encoded bytes, so the hash covers the whole body even if decompression
+ * stopped early.
+ */
+public class DecodingBodyCapture extends BodyCapture {
+
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+	public static final String ENCODED_TRUNCATION_MARKER = "... [%d encoded bytes omitted]";
+
+	private static final int GZIP_HEADER_SIZE = 10;
+	private static final int GZIP_TRAILER_SIZE = 8;
+	private static final int GZIP_FHCRC = 2;
+	private static final int GZIP_FEXTRA = 4;
+	private static final int GZIP_FNAME = 8;
+	private static final int GZIP_FCOMMENT = 16;
+
+	private final boolean gzip;
+	private final Buffer pending = new Buffer();
+	private final Buffer decoded = new Buffer();
+	private Inflater inflater;
+	private int fed;
+	private long headerSize;
+	private long trailerLeft;
+	private long encodedMembers;
+	private long encodedTotal;
+	private long encodedDecoded;
+	private boolean done;
+	private boolean stopped;
+
+	/**
+	 * @param encoding       content encoding, see {@link #isSupported(String)}
+	 * @param limit          maximum number of decoded bytes to capture
+	 * @param spillThreshold number of captured bytes after which the capture is moved to a temporary file
+	 */
+	public DecodingBodyCapture(@Nonnull String encoding, long limit, long spillThreshold) {
+		super(limit, spillThreshold);
+		String normalized = normalize(encoding);
+		if (!GZIP.equals(normalized) && !DEFLATE.equals(normalized)) {
+			throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+		}
+		gzip = GZIP.equals(normalized);
+	}
+
+	@Nonnull
+	private static String normalize(@Nonnull String encoding) {
+		String result = encoding.trim().toLowerCase(Locale.ROOT);
+		return "x-gzip".equals(result) ? GZIP : result;
+	}
+
+	/**
+	 * @param encoding value of a <code>Content-Encoding</code> header
+	 * @return <code>true</code> if a body with the encoding can be decoded while captured
+	 */
+	public static boolean isSupported(@Nullable String encoding) {
+		if (encoding == null) {
+			return false;
+		}
+		String normalized = normalize(encoding);
+		return GZIP.equals(normalized) || DEFLATE.equals(normalized);
+	}
+
+	/**
+	 * Parse gzip header, see RFC 1952.
+	 *
+	 * @return header size or <code>-1</code> if not enough bytes arrived yet
+	 */
+	private long parseGzipHeader() throws DataFormatException {
+		if (pending.size() < GZIP_HEADER_SIZE) {
+			return -1;
+		}
+		if (pending.getByte(0) != (byte) 0x1f || pending.getByte(1) != (byte) 0x8b || pending.getByte(2) != 8) {
+			throw new DataFormatException("Not in gzip format");
+		}
+		int flags = pending.getByte(3);
+		long size = GZIP_HEADER_SIZE;
+		if ((flags & GZIP_FEXTRA) != 0) {
+			if (pending.size() < size + 2) {
+				return -1;
+			}
+			size += 2 + ((pending.getByte(size) & 0xff) | (pending.getByte(size + 1) & 0xff) << 8);
+		}
+		for (int flag : new int[] { GZIP_FNAME, GZIP_FCOMMENT }) {
+			if ((flags & flag) != 0) {
+				long end = size < pending.size() ? pending.indexOf((byte) 0, size) : -1;
+				if (end < 0) {
+					return -1;
+				}
+				size = end + 1;
+			}
+		}
+		if ((flags & GZIP_FHCRC) != 0) {
+			size += 2;
+		}
+		return pending.size() < size ? -1 : size;
+	}
+
+	/**
+	 * Create an inflater once the stream header is available.
+	 *
+	 * @return <code>true</code> if the inflater is ready
+	 */
+	private boolean initInflater() throws DataFormatException {
+		if (inflater != null) {
+			return true;
+		}
+		if (gzip) {
+			long skip = Math.min(trailerLeft, pending.size());
+			pending.skip(skip);
+			trailerLeft -= skip;
+			if (trailerLeft > 0) {
+				return false;
+			}
+			long size = parseGzipHeader();
+			if (size < 0) {
+				return false;
+			}
+			pending.skip(size);
+			headerSize = size;
+			inflater = new Inflater(true);
+			return true;
+		}
+		if (pending.size() < 2) {
+			return false;
+		}
+		// "deflate" should be zlib-wrapped, but some servers send raw deflate data, see RFC 1950 for the check
+		int cmf = pending.getByte(0) & 0xff;
+		int flg = pending.getByte(1) & 0xff;
+		inflater = new Inflater((cmf & 0x0f) != 8 || (cmf << 8 | flg) % 31 != 0);
+		return true;
+	}
+
+	private void finish(boolean stopped) {
+		done = true;
+		this.stopped = stopped;
+		encodedDecoded = encodedMembers;
+		if (inflater != null) {
+			encodedDecoded += headerSize + inflater.getBytesRead();
+			inflater.end();
+		}
+		fed = 0;
+		pending.clear();
+		decoded.clear();
+	}
+
+	/**
+	 * Pass the head segment of the pending buffer to the inflater. The segment stays in the buffer until the inflater
+	 * consumes it, new bytes are only appended after it.
+	 *
+	 * @return <code>false</code> if there is nothing to inflate
+	 */
+	private boolean feed() {
+		pending.skip(fed);
+		fed = 0;
+		if (pending.size() == 0) {
+			return false;
+		}
+		try (Buffer.UnsafeCursor cursor = pending.readUnsafe()) {
+			cursor.seek(0);
+			fed = cursor.end - cursor.start;
+			inflater.setInput(cursor.data, cursor.start, fed);
+		}
+		return true;
+	}
+
+	/**
+	 * Inflate into a free segment of the decoded buffer.
+	 *
+	 * @return number of decoded bytes
+	 */
+	private int inflate() throws DataFormatException {
+		try (Buffer.UnsafeCursor cursor = decoded.readAndWriteUnsafe()) {
+			long size = decoded.size();
+			cursor.expandBuffer(1);
+			int count = inflater.inflate(cursor.data, cursor.start, cursor.end - cursor.start);
+			cursor.resizeBuffer(size + count);
+			return count;
+		}
+	}
+
+	/**
+	 * End the current gzip member. Input bytes the inflater didn't consume belong to the member trailer, which is
+	 * skipped, and the next member, if any.
+	 */
+	private void endGzipMember() {
+		pending.skip(fed - inflater.getRemaining());
+		fed = 0;
+		encodedMembers += headerSize + inflater.getBytesRead() + GZIP_TRAILER_SIZE;
+		inflater.end();
+		inflater = null;
+		headerSize = 0;
+		trailerLeft = GZIP_TRAILER_SIZE;
+	}
+
+	private void decode() throws DataFormatException {
+		while (!done) {
+			if (!initInflater() || inflater.needsInput() && !feed()) {
+				return;
+			}
+			int count = inflate();
+			if (count > 0) {
+				append(decoded, 0, count);
+				decoded.clear();
+			}
+			if (inflater.finished()) {
+				if (gzip) {
+					endGzipMember();
+				} else {
+					finish(false);
+				}
+			} else if (getCaptured() >= getLimit() && super.getTotal() > getCaptured()) {
+				finish(true);
+			} else if (count == 0 && inflater.needsDictionary()) {
+				throw new DataFormatException("Preset dictionaries are not supported");
+			}
+		}
+	}
+
+	/**
+	 * Copy encoded bytes from the given buffer without consuming them and decode them up to the capture limit.
+	 *
+	 * @param source    buffer to copy from
+	 * @param offset    offset of the first byte to copy in the source buffer
+	 * @param byteCount number of bytes to copy
+	 */
+	@Override
+	public void write(@Nonnull Buffer source, long offset, long byteCount) {
+		encodedTotal += byteCount;
+		updateDigest(source, offset, byteCount);
+		if (done || byteCount <= 0) {
+			return;
+		}
+		source.copyTo(pending, offset, byteCount);
+		try {
+			decode();
+		} catch (DataFormatException e) {
+			// Corrupted data should never break the HTTP call, keep what was decoded so far
+			finish(true);
+		}
+	}
+
+	/**
+	 * @return number of encoded bytes written to the capture
+	 */
+	@Override
+	public long getEncodedTotal() {
+		return encodedTotal;
+	}
+
+	@Override
+	public long getOmitted() {
+		return stopped ? super.getOmitted() + encodedTotal - encodedDecoded : super.getOmitted();
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return stopped || super.isTruncated();
+	}
+
+	@Nonnull
+	@Override
+	public String getTruncationMarker() {
+		return stopped && !isNotFullyRead() ?
+				String.format(ENCODED_TRUNCATION_MARKER, encodedTotal - encodedDecoded) :
+				super.getTruncationMarker();
+	}
+
+	@Override
+	public void close() {
+		if (!done) {
+			finish(false);
+		}
+		super.close();
+	}
+}
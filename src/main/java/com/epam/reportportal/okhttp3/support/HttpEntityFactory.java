@@ -26,23 +26,23 @@ import com.epam.reportportal.formatting.http.entities.Header;
 import com.epam.reportportal.formatting.http.entities.Param;
 import com.epam.reportportal.utils.http.ContentType;
 import okhttp3.*;
-import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.StreamSupport;
 
-import static com.epam.reportportal.formatting.http.HttpFormatUtils.getBodyType;
-import static com.epam.reportportal.formatting.http.HttpFormatUtils.getMimeType;
 import static java.util.Optional.ofNullable;
 
 /**
@@ -50,31 +50,161 @@ import static java.util.Optional.ofNullable;
  */
 public class HttpEntityFactory {
 
+	public static final String TRUNCATION_MARKER = "... [%d bytes omitted]";
+	public static final String NOT_FULLY_READ_MARKER = "... [body not fully read (%d of %d bytes)]";
+	public static final String NOT_FULLY_READ_UNKNOWN_LENGTH_MARKER = "... [body not fully read (%d bytes)]";
+	public static final String CAPTURE_FAILED_MARKER = "... [body capture failed, %d bytes omitted]";
+	public static final String PART_SUMMARY = "[%d bytes, SHA-256: %s]";
+
+	private static final String COOKIE_HEADER = "Cookie";
+	private static final String SET_COOKIE_HEADER = "Set-Cookie";
+	private static final MediaType OCTET_STREAM_TYPE = MediaType.get(ContentType.APPLICATION_OCTET_STREAM);
+
+	/**
+	 * Resolve {@link BodyType} of the given content type.
+	 *
+	 * @param contentType body content type
+	 * @param bodyTypeMap mime type to body type map
+	 * @return body type
+	 */
+	@Nonnull
+	public static BodyType getBodyType(@Nullable MediaType contentType, @Nonnull Map<String, BodyType> bodyTypeMap) {
+		return HttpFormatUtils.getBodyType(ofNullable(contentType).map(MediaType::toString).orElse(null), bodyTypeMap);
+	}
+
+	/**
+	 * Write the request body into the given {@link BodyCapture}.
+	 *
+	 * @param body    request body to capture
+	 * @param capture capture to write to
+	 * @return the capture
+	 */
 	@Nonnull
-	private static String toString(@Nonnull RequestBody body) {
-		try (Buffer buffer = new Buffer()) {
-			body.writeTo(buffer);
-			return buffer.readString(ofNullable(body.contentType()).map(MediaType::charset)
-					.orElse(StandardCharsets.UTF_8));
+	public static BodyCapture capture(@Nonnull RequestBody body, @Nonnull BodyCapture capture) {
+		try (BufferedSink sink = Okio.buffer(capture.sink())) {
+			body.writeTo(sink);
 		} catch (IOException e) {
 			throw new IllegalStateException("Error writing in-memory buffer", e);
 		}
+		return capture;
 	}
 
+	/**
+	 * Write the request body into a {@link BodyCapture} with the given limit.
+	 *
+	 * @param body  request body to capture
+	 * @param limit maximum number of bytes to capture
+	 * @return captured body
+	 */
 	@Nonnull
-	private static byte[] toBytes(@Nonnull RequestBody body) {
-		try (Buffer buffer = new Buffer()) {
-			body.writeTo(buffer);
-			return buffer.readByteArray();
-		} catch (IOException e) {
-			throw new IllegalStateException("Error writing in-memory buffer", e);
+	public static BodyCapture capture(@Nonnull RequestBody body, long limit) {
+		return capture(body, new BodyCapture(limit));
+	}
+
+	@Nonnull
+	private static String getPartMimeType(@Nonnull MultipartBody.Part part) {
+		return ofNullable(part.body().contentType()).map(Object::toString).orElse(ContentType.APPLICATION_OCTET_STREAM);
+	}
+
+	@Nonnull
+	private static BodyType getPartBodyType(@Nonnull MultipartBody.Part part,
+			@Nonnull Function<MediaType, MediaTypeCache.Resolved> mediaTypes) {
+		MediaType contentType = part.body().contentType();
+		return mediaTypes.apply(contentType == null ? OCTET_STREAM_TYPE : contentType).getBodyType();
+	}
+
+	/**
+	 * Create empty captures for each part of the multipart body. Parts which should be logged with their content get a
+	 * capture limited by their body type, parts which should be summarized get a hashing capture which keeps no data.
+	 *
+	 * @param body          multipart body
+	 * @param bodyTypeMap   mime type to body type map
+	 * @param captureLimits maximum number of bytes to capture for each body type
+	 * @param partPolicy    policy which decides how to log each part
+	 * @return part captures in the order of parts
+	 */
+	@Nonnull
+	public static List<BodyCapture> createPartCaptures(@Nonnull MultipartBody body,
+			@Nonnull Map<String, BodyType> bodyTypeMap, @Nonnull Map<BodyType, Long> captureLimits,
+			@Nonnull PartPolicy partPolicy) {
+		return createPartCaptures(body, t -> MediaTypeCache.resolve(t, bodyTypeMap), captureLimits, partPolicy);
+	}
+
+	/**
+	 * Create empty captures for each part of the multipart body, see
+	 * {@link #createPartCaptures(MultipartBody, Map, Map, PartPolicy)}.
+	 *
+	 * @param body          multipart body
+	 * @param mediaTypes    media type cache bound to the mime type to body type map
+	 * @param captureLimits maximum number of bytes to capture for each body type
+	 * @param partPolicy    policy which decides how to log each part
+	 * @return part captures in the order of parts
+	 */
+	@Nonnull
+	public static List<BodyCapture> createPartCaptures(@Nonnull MultipartBody body, @Nonnull MediaTypeCache mediaTypes,
+			@Nonnull Map<BodyType, Long> captureLimits, @Nonnull PartPolicy partPolicy) {
+		return createPartCaptures(body, mediaTypes::resolve, captureLimits, partPolicy);
+	}
+
+	@Nonnull
+	private static List<BodyCapture> createPartCaptures(@Nonnull MultipartBody body,
+			@Nonnull Function<MediaType, MediaTypeCache.Resolved> mediaTypes, @Nonnull Map<BodyType, Long> captureLimits,
+			@Nonnull PartPolicy partPolicy) {
+		List<MultipartBody.Part> parts = body.parts();
+		List<BodyCapture> result = new ArrayList<>(parts.size());
+		for (MultipartBody.Part part : parts) {
+			BodyType type = getPartBodyType(part, mediaTypes);
+			if (PartPolicy.Mode.SUMMARY == partPolicy.apply(part, type)) {
+				result.add(new BodyCapture(0).hashing());
+			} else {
+				result.add(new BodyCapture(captureLimits.getOrDefault(type, BodyCapture.UNLIMITED)));
+			}
+		}
+		return result;
+	}
+
+	@Nonnull
+	private static Charset getCharset(@Nullable MediaType contentType) {
+		return ofNullable(contentType).map(MediaType::charset).orElse(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decode captured text and append a truncation marker if some bytes were omitted.
+	 *
+	 * @param capture     captured body
+	 * @param contentType body content type
+	 * @return body text
+	 */
+	@Nonnull
+	public static String toString(@Nonnull BodyCapture capture, @Nullable MediaType contentType) {
+		return toString(capture, getCharset(contentType));
+	}
+
+	@Nonnull
+	private static String toString(@Nonnull BodyCapture capture, @Nonnull Charset charset) {
+		String text = capture.readString(charset);
+		if (capture.isTruncated()) {
+			return text + "\n" + capture.getTruncationMarker();
 		}
+		return text;
+	}
+
+	/**
+	 * Get captured binary data. Data spilled to a temporary file is not read here, but streamed from the file when the
+	 * log entry is emitted, so an empty array is returned instead.
+	 *
+	 * @param capture captured body
+	 * @return captured bytes or an empty array if the capture is spilled
+	 */
+	@Nonnull
+	public static byte[] toBytes(@Nonnull BodyCapture capture) {
+		return capture.isSpilled() ? new byte[0] : capture.readByteArray();
 	}
 
 	@Nonnull
 	private static String toString(@Nonnull ResponseBody body) {
-		try {
-			return body.string();
+		try (BufferedSource source = body.source()) {
+			return TextBodyDecoder.decode(source, getCharset(body.contentType()), body.contentLength());
 		} catch (IOException e) {
 			throw new IllegalStateException("Error reading response body", e);
 		}
@@ -103,37 +233,60 @@ public class HttpEntityFactory {
 
 	@Nonnull
 	private static List<HttpPartFormatter> toParts(@Nonnull RequestBody body,
-			@Nonnull Map<String, BodyType> bodyTypeMap, @Nullable Function<Header, String> partHeaderConverter) {
+			@Nonnull Function<MediaType, MediaTypeCache.Resolved> mediaTypes,
+			@Nullable Function<Header, String> partHeaderConverter, @Nonnull Map<BodyType, Long> captureLimits,
+			@Nullable List<BodyCapture> partCaptures,
+			@Nonnull PartPolicy partPolicy) {
 		if (!(body instanceof MultipartBody)) {
 			return Collections.emptyList();
 		}
 		MultipartBody multipartBody = (MultipartBody) body;
-		return multipartBody.parts().stream().map(it -> {
-			RequestBody partBody = it.body();
-			String partMimeType = ofNullable(partBody.contentType()).map(Object::toString)
-					.orElse(ContentType.APPLICATION_OCTET_STREAM);
-			BodyType bodyPartType = getBodyType(partMimeType, bodyTypeMap);
+		List<MultipartBody.Part> parts = multipartBody.parts();
+		List<BodyCapture> captures = ofNullable(partCaptures).orElseGet(() -> createPartCaptures(multipartBody,
+				mediaTypes,
+				captureLimits,
+				partPolicy
+		));
+		List<HttpPartFormatter> result = new ArrayList<>(parts.size());
+		for (int i = 0; i < parts.size(); i++) {
+			MultipartBody.Part part = parts.get(i);
+			RequestBody partBody = part.body();
+			BodyCapture partCapture = captures.get(i);
+			if (partCaptures == null) {
+				capture(partBody, partCapture);
+			}
+			String partMimeType = getPartMimeType(part);
+			MediaTypeCache.Resolved partType = mediaTypes.apply(ofNullable(partBody.contentType()).orElse(OCTET_STREAM_TYPE));
+			BodyType bodyPartType = partType.getBodyType();
 			HttpPartFormatter.Builder partBuilder;
-			if (BodyType.TEXT == bodyPartType) {
+			String sha256 = partCapture.getSha256();
+			if (sha256 != null) {
 				partBuilder = new HttpPartFormatter.Builder(HttpPartFormatter.PartType.TEXT,
 						partMimeType,
-						toString(partBody)
+						String.format(PART_SUMMARY, partCapture.getTotal(), sha256)
+				);
+			} else if (BodyType.TEXT == bodyPartType) {
+				partBuilder = new HttpPartFormatter.Builder(HttpPartFormatter.PartType.TEXT,
+						partMimeType,
+						toString(partCapture, partType.getCharset())
 				);
 			} else {
 				partBuilder = new HttpPartFormatter.Builder(HttpPartFormatter.PartType.BINARY,
 						partMimeType,
-						toBytes(partBody)
+						partCapture.readByteArray()
 				);
 			}
-			ofNullable(it.headers()).ifPresent(headers -> headers.forEach(h -> partBuilder.addHeader(new Header(h.getFirst(),
-					h.getSecond()
-			))));
-			ofNullable(it.body().contentType()).map(MediaType::charset)
-					.map(Charset::name)
-					.ifPresent(partBuilder::charset);
+			Headers partHeaders = part.headers();
+			if (partHeaders != null) {
+				for (int j = 0, size = partHeaders.size(); j < size; j++) {
+					partBuilder.addHeader(new Header(partHeaders.name(j), partHeaders.value(j)));
+				}
+			}
+			ofNullable(partType.getDeclaredCharset()).map(Charset::name).ifPresent(partBuilder::charset);
 			partBuilder.headerConverter(partHeaderConverter);
-			return partBuilder.build();
-		}).collect(Collectors.toList());
+			result.add(partBuilder.build());
+		}
+		return result;
 	}
 
 	@Nonnull
@@ -142,16 +295,146 @@ public class HttpEntityFactory {
 			@Nullable Function<Cookie, String> cookieConverter, @Nullable Function<Param, String> paramConverter,
 			@Nullable Map<String, Function<String, String>> prettifiers,
 			@Nullable Function<Header, String> partHeaderConverter, @Nonnull Map<String, BodyType> bodyTypeMap) {
+		return createHttpRequestFormatter(request,
+				null,
+				uriConverter,
+				headerConverter,
+				cookieConverter,
+				paramConverter,
+				prettifiers,
+				partHeaderConverter,
+				bodyTypeMap,
+				Collections.emptyMap()
+		);
+	}
+
+	@Nonnull
+	public static HttpRequestFormatter createHttpRequestFormatter(@Nonnull Request request, @Nullable BodyCapture bodyCapture,
+			@Nullable Function<String, String> uriConverter, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Function<Param, String> paramConverter,
+			@Nullable Map<String, Function<String, String>> prettifiers,
+			@Nullable Function<Header, String> partHeaderConverter, @Nonnull Map<String, BodyType> bodyTypeMap,
+			@Nonnull Map<BodyType, Long> captureLimits) {
+		return createHttpRequestFormatter(request,
+				bodyCapture,
+				uriConverter,
+				headerConverter,
+				cookieConverter,
+				paramConverter,
+				prettifiers,
+				partHeaderConverter,
+				bodyTypeMap,
+				captureLimits,
+				null,
+				PartPolicy.content()
+		);
+	}
+
+	/**
+	 * Create request formatter for the given request.
+	 *
+	 * @param request             OkHttp request
+	 * @param bodyCapture         already captured request body of TEXT or BINARY type, if <code>null</code> the body will
+	 *                            be captured here
+	 * @param uriConverter        URI converter
+	 * @param headerConverter     header converter
+	 * @param cookieConverter     cookie converter
+	 * @param paramConverter      form parameter converter
+	 * @param prettifiers         content prettifiers
+	 * @param partHeaderConverter multipart part header converter
+	 * @param bodyTypeMap         mime type to body type map
+	 * @param captureLimits       maximum number of bytes to capture for each body type
+	 * @param partCaptures        already captured multipart parts, see {@link #createPartCaptures}, if <code>null</code>
+	 *                            the parts will be captured here
+	 * @param partPolicy          policy which decides how to log each part, used only if parts are captured here
+	 * @return request formatter
+	 */
+	@Nonnull
+	public static HttpRequestFormatter createHttpRequestFormatter(@Nonnull Request request, @Nullable BodyCapture bodyCapture,
+			@Nullable Function<String, String> uriConverter, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Function<Param, String> paramConverter,
+			@Nullable Map<String, Function<String, String>> prettifiers,
+			@Nullable Function<Header, String> partHeaderConverter, @Nonnull Map<String, BodyType> bodyTypeMap,
+			@Nonnull Map<BodyType, Long> captureLimits, @Nullable List<BodyCapture> partCaptures,
+			@Nonnull PartPolicy partPolicy) {
+		return createHttpRequestFormatter(request,
+				bodyCapture,
+				uriConverter,
+				headerConverter,
+				cookieConverter,
+				paramConverter,
+				prettifiers,
+				partHeaderConverter,
+				t -> MediaTypeCache.resolve(t, bodyTypeMap),
+				captureLimits,
+				partCaptures,
+				partPolicy
+		);
+	}
+
+	/**
+	 * Create request formatter for the given request, resolving body types with the given media type cache, see
+	 * {@link #createHttpRequestFormatter(Request, BodyCapture, Function, Function, Function, Function, Map, Function,
+	 * Map, Map, List, PartPolicy)}.
+	 *
+	 * @param request             OkHttp request
+	 * @param bodyCapture         already captured request body of TEXT or BINARY type, if <code>null</code> the body will
+	 *                            be captured here
+	 * @param uriConverter        URI converter
+	 * @param headerConverter     header converter
+	 * @param cookieConverter     cookie converter
+	 * @param paramConverter      form parameter converter
+	 * @param prettifiers         content prettifiers
+	 * @param partHeaderConverter multipart part header converter
+	 * @param mediaTypes          media type cache bound to the mime type to body type map
+	 * @param captureLimits       maximum number of bytes to capture for each body type
+	 * @param partCaptures        already captured multipart parts, if <code>null</code> the parts will be captured here
+	 * @param partPolicy          policy which decides how to log each part, used only if parts are captured here
+	 * @return request formatter
+	 */
+	@Nonnull
+	public static HttpRequestFormatter createHttpRequestFormatter(@Nonnull Request request, @Nullable BodyCapture bodyCapture,
+			@Nullable Function<String, String> uriConverter, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Function<Param, String> paramConverter,
+			@Nullable Map<String, Function<String, String>> prettifiers,
+			@Nullable Function<Header, String> partHeaderConverter, @Nonnull MediaTypeCache mediaTypes,
+			@Nonnull Map<BodyType, Long> captureLimits, @Nullable List<BodyCapture> partCaptures,
+			@Nonnull PartPolicy partPolicy) {
+		return createHttpRequestFormatter(request,
+				bodyCapture,
+				uriConverter,
+				headerConverter,
+				cookieConverter,
+				paramConverter,
+				prettifiers,
+				partHeaderConverter,
+				mediaTypes::resolve,
+				captureLimits,
+				partCaptures,
+				partPolicy
+		);
+	}
+
+	@Nonnull
+	private static HttpRequestFormatter createHttpRequestFormatter(@Nonnull Request request,
+			@Nullable BodyCapture bodyCapture, @Nullable Function<String, String> uriConverter,
+			@Nullable Function<Header, String> headerConverter, @Nullable Function<Cookie, String> cookieConverter,
+			@Nullable Function<Param, String> paramConverter, @Nullable Map<String, Function<String, String>> prettifiers,
+			@Nullable Function<Header, String> partHeaderConverter,
+			@Nonnull Function<MediaType, MediaTypeCache.Resolved> mediaTypes, @Nonnull Map<BodyType, Long> captureLimits,
+			@Nullable List<BodyCapture> partCaptures, @Nonnull PartPolicy partPolicy) {
 		HttpRequestFormatter.Builder builder = new HttpRequestFormatter.Builder(request.method(),
 				request.url().toString()
 		);
-		StreamSupport.stream(request.headers().spliterator(), false)
-				.filter(h -> !HttpFormatUtils.isCookie(h.getFirst()))
-				.forEach(h -> builder.addHeader(h.getFirst(), h.getSecond()));
-		StreamSupport.stream(request.headers().spliterator(), false)
-				.filter(h -> HttpFormatUtils.isCookie(h.getFirst()))
-				.flatMap(h -> HttpFormatUtils.toKeyValue(h.getSecond()))
-				.forEach(h -> builder.addCookie(h.getKey(), h.getValue()));
+		Headers headers = request.headers();
+		for (int i = 0, size = headers.size(); i < size; i++) {
+			String name = headers.name(i);
+			if (COOKIE_HEADER.equalsIgnoreCase(name)) {
+				HttpFormatUtils.toKeyValue(headers.value(i)).forEach(c -> builder.addCookie(c.getKey(), c.getValue()));
+			} else {
+				builder.addHeader(name, headers.value(i));
+			}
+		}
 		builder.uriConverter(uriConverter)
 				.headerConverter(headerConverter)
 				.cookieConverter(cookieConverter)
@@ -162,21 +445,25 @@ public class HttpEntityFactory {
 			return builder.build();
 		}
 
-		String contentType = ofNullable(body.contentType()).map(MediaType::toString).orElse(null);
-		String type = getMimeType(contentType);
-		BodyType bodyType = getBodyType(contentType, bodyTypeMap);
+		MediaTypeCache.Resolved mediaType = mediaTypes.apply(body.contentType());
+		String type = mediaType.getMimeType();
+		BodyType bodyType = mediaType.getBodyType();
 		switch (bodyType) {
 			case TEXT:
-				builder.bodyText(type, toString(body));
+				builder.bodyText(type, toString(ofNullable(bodyCapture).orElseGet(() -> capture(body,
+						captureLimits.getOrDefault(bodyType, BodyCapture.UNLIMITED)
+				)), mediaType.getCharset()));
 				break;
 			case FORM:
 				builder.bodyParams(toParams(body));
 				break;
 			case MULTIPART:
-				toParts(body, bodyTypeMap, partHeaderConverter).forEach(builder::addBodyPart);
+				toParts(body, mediaTypes, partHeaderConverter, captureLimits, partCaptures, partPolicy).forEach(builder::addBodyPart);
 				break;
 			default:
-				builder.bodyBytes(type, toBytes(body));
+				builder.bodyBytes(type, toBytes(ofNullable(bodyCapture).orElseGet(() -> capture(body,
+						captureLimits.getOrDefault(bodyType, BodyCapture.UNLIMITED)
+				))));
 		}
 		return builder.build();
 	}
@@ -185,26 +472,86 @@ public class HttpEntityFactory {
 	public static HttpResponseFormatter createHttpResponseFormatter(@Nonnull Response response,
 			@Nullable Function<Header, String> headerConverter, @Nullable Function<Cookie, String> cookieConverter,
 			@Nullable Map<String, Function<String, String>> prettifiers, @Nonnull Map<String, BodyType> bodyTypeMap) {
+		return createHttpResponseFormatter(response, null, headerConverter, cookieConverter, prettifiers, bodyTypeMap);
+	}
+
+	/**
+	 * Create response formatter for the given response.
+	 *
+	 * @param response        OkHttp response
+	 * @param bodyCapture     captured response body, if <code>null</code> the body will be read from the response
+	 * @param headerConverter header converter
+	 * @param cookieConverter cookie converter
+	 * @param prettifiers     content prettifiers
+	 * @param bodyTypeMap     mime type to body type map
+	 * @return response formatter
+	 */
+	@Nonnull
+	public static HttpResponseFormatter createHttpResponseFormatter(@Nonnull Response response,
+			@Nullable BodyCapture bodyCapture, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Map<String, Function<String, String>> prettifiers,
+			@Nonnull Map<String, BodyType> bodyTypeMap) {
+		return createHttpResponseFormatter(response,
+				bodyCapture,
+				headerConverter,
+				cookieConverter,
+				prettifiers,
+				t -> MediaTypeCache.resolve(t, bodyTypeMap)
+		);
+	}
+
+	/**
+	 * Create response formatter for the given response, resolving the body type with the given media type cache.
+	 *
+	 * @param response        OkHttp response
+	 * @param bodyCapture     captured response body, if <code>null</code> the body will be read from the response
+	 * @param headerConverter header converter
+	 * @param cookieConverter cookie converter
+	 * @param prettifiers     content prettifiers
+	 * @param mediaTypes      media type cache bound to the mime type to body type map
+	 * @return response formatter
+	 */
+	@Nonnull
+	public static HttpResponseFormatter createHttpResponseFormatter(@Nonnull Response response,
+			@Nullable BodyCapture bodyCapture, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Map<String, Function<String, String>> prettifiers,
+			@Nonnull MediaTypeCache mediaTypes) {
+		return createHttpResponseFormatter(response,
+				bodyCapture,
+				headerConverter,
+				cookieConverter,
+				prettifiers,
+				mediaTypes::resolve
+		);
+	}
+
+	@Nonnull
+	private static HttpResponseFormatter createHttpResponseFormatter(@Nonnull Response response,
+			@Nullable BodyCapture bodyCapture, @Nullable Function<Header, String> headerConverter,
+			@Nullable Function<Cookie, String> cookieConverter, @Nullable Map<String, Function<String, String>> prettifiers,
+			@Nonnull Function<MediaType, MediaTypeCache.Resolved> mediaTypes) {
 		HttpResponseFormatter.Builder builder = new HttpResponseFormatter.Builder(response.code(), response.message());
-		StreamSupport.stream(response.headers().spliterator(), false)
-				.filter(h -> !HttpFormatUtils.isSetCookie(h.getFirst()))
-				.forEach(h -> builder.addHeader(h.getFirst(), h.getSecond()));
-		StreamSupport.stream(response.headers().spliterator(), false)
-				.filter(h -> HttpFormatUtils.isSetCookie(h.getFirst()))
-				.forEach(h -> builder.addCookie(HttpFormatUtils.toCookie(h.getSecond())));
+		Headers headers = response.headers();
+		for (int i = 0, size = headers.size(); i < size; i++) {
+			String name = headers.name(i);
+			if (SET_COOKIE_HEADER.equalsIgnoreCase(name)) {
+				builder.addCookie(HttpFormatUtils.toCookie(headers.value(i)));
+			} else {
+				builder.addHeader(name, headers.value(i));
+			}
+		}
 		builder.headerConverter(headerConverter).cookieConverter(cookieConverter).prettifiers(prettifiers);
 		ResponseBody body = response.body();
 		if (body == null) {
 			return builder.build();
 		}
 
-		String contentType = ofNullable(body.contentType()).map(MediaType::toString).orElse(null);
-		String type = getMimeType(contentType);
-		BodyType bodyType = getBodyType(contentType, bodyTypeMap);
-		if (BodyType.TEXT == bodyType) {
-			builder.bodyText(type, toString(body));
+		MediaTypeCache.Resolved mediaType = mediaTypes.apply(body.contentType());
+		String type = mediaType.getMimeType();
+		if (BodyType.TEXT == mediaType.getBodyType()) {
+			builder.bodyText(type, bodyCapture == null ? toString(body) : toString(bodyCapture, mediaType.getCharset()));
 		} else {
-			builder.bodyBytes(type, toBytes(body));
+			builder.bodyBytes(type, bodyCapture == null ? toBytes(body) : toBytes(bodyCapture));
 		}
 		return builder.build();
 	}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link InterceptorMetrics} implementation, which keeps counters and lock-free timing histograms in memory,
+ * so they can be read programmatically, e.g. to attach them to a report or to check an overhead budget.
+ */
+public class InMemoryInterceptorMetrics implements InterceptorMetrics {
+
+	/**
+	 * Lock-free histogram with power of two buckets: bucket <code>i</code> holds values from <code>2^(i-1)</code> to
+	 * <code>2^i - 1</code>. Percentiles are reported as bucket upper bounds, so they are accurate within a factor of 2.
+	 */
+	public static class Histogram {
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		public void record(long value) {
+			long v = Math.max(value, 0);
+			buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+			count.increment();
+			sum.add(v);
+			max.accumulate(v);
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getSum() {
+			return sum.sum();
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		public double getMean() {
+			long c = getCount();
+			return c == 0 ? 0 : (double) getSum() / c;
+		}
+
+		/**
+		 * @param percentile percentile to get, from 0 to 100
+		 * @return upper bound of the bucket the percentile falls into
+		 */
+		public long getPercentile(double percentile) {
+			long[] snapshot = new long[buckets.length()];
+			long total = 0;
+			for (int i = 0; i < snapshot.length; i++) {
+				snapshot[i] = buckets.get(i);
+				total += snapshot[i];
+			}
+			long threshold = (long) Math.ceil(total * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < snapshot.length; i++) {
+				seen += snapshot[i];
+				if (seen >= threshold && seen > 0) {
+					return i >= Long.SIZE - 1 ? Long.MAX_VALUE : Math.min((1L << i) - 1, getMax());
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99)
+					+ ", max=" + getMax();
+		}
+	}
+
+	private final Map<Phase, Histogram> timings = new EnumMap<>(Phase.class);
+	private final Map<SkipReason, LongAdder> skipped = new EnumMap<>(SkipReason.class);
+	private final LongAdder capturedBytes = new LongAdder();
+	private final LongAdder omittedBytes = new LongAdder();
+	private final LongAdder truncations = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	public InMemoryInterceptorMetrics() {
+		Arrays.stream(Phase.values()).forEach(p -> timings.put(p, new Histogram()));
+		Arrays.stream(SkipReason.values()).forEach(r -> skipped.put(r, new LongAdder()));
+	}
+
+	@Override
+	public void onPhase(@Nonnull Phase phase, long nanos) {
+		timings.get(phase).record(nanos);
+	}
+
+	@Override
+	public void onCapture(long capturedBytes, long omittedBytes, boolean truncated) {
+		this.capturedBytes.add(capturedBytes);
+		this.omittedBytes.add(omittedBytes);
+		if (truncated) {
+			truncations.increment();
+		}
+	}
+
+	@Override
+	public void onSkip(@Nonnull SkipReason reason) {
+		skipped.get(reason).increment();
+	}
+
+	@Override
+	public void onDrop() {
+		dropped.increment();
+	}
+
+	/**
+	 * @param phase interceptor phase
+	 * @return histogram of the phase's durations in nanoseconds
+	 */
+	@Nonnull
+	public Histogram getTimings(@Nonnull Phase phase) {
+		return timings.get(phase);
+	}
+
+	public long getSkipped(@Nonnull SkipReason reason) {
+		return skipped.get(reason).sum();
+	}
+
+	public long getCapturedBytes() {
+		return capturedBytes.sum();
+	}
+
+	public long getOmittedBytes() {
+		return omittedBytes.sum();
+	}
+
+	public long getTruncations() {
+		return truncations.sum();
+	}
+
+	/**
+	 * @return number of log entries dropped by the asynchronous emitter
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("InMemoryInterceptorMetrics{");
+		timings.forEach((phase, histogram) -> builder.append(phase).append("=[").append(histogram).append("], "));
+		skipped.forEach((reason, counter) -> builder.append("skipped ").append(reason).append('=').append(counter.sum()).append(", "));
+		return builder.append("capturedBytes=")
+				.append(getCapturedBytes())
+				.append(", omittedBytes=")
+				.append(getOmittedBytes())
+				.append(", truncations=")
+				.append(getTruncations())
+				.append(", dropped=")
+				.append(getDropped())
+				.append('}')
+				.toString();
+	}
+}
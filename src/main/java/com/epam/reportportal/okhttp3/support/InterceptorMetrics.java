@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Listener of the interceptor's own overhead: time spent in its phases, bytes captured and entries skipped. All
+ * methods are called on the hot path, so implementations should be cheap and thread-safe.
+ */
+public interface InterceptorMetrics {
+
+	/**
+	 * Metrics listener which ignores everything.
+	 */
+	InterceptorMetrics NOOP = new InterceptorMetrics() {
+	};
+
+	/**
+	 * Timed interceptor phases.
+	 */
+	enum Phase {
+		/**
+		 * Request formatter creation, including body decoding and prettifying
+		 */
+		REQUEST_FORMATTING,
+		/**
+		 * Response formatter creation from the captured body, including body decoding and prettifying
+		 */
+		RESPONSE_FORMATTING,
+		/**
+		 * Passing of formatted entries to Report Portal client
+		 */
+		EMISSION
+	}
+
+	/**
+	 * Reasons to skip logging of an HTTP call.
+	 */
+	enum SkipReason {
+		/**
+		 * The call matched one of the request filters
+		 */
+		FILTER,
+		/**
+		 * The call was not sampled by the sampling policy
+		 */
+		SAMPLING,
+		/**
+		 * The response matched one of the response filters, or the call succeeded in failures only mode
+		 */
+		RESPONSE_FILTER
+	}
+
+	/**
+	 * Called when an interceptor phase is finished.
+	 *
+	 * @param phase interceptor phase
+	 * @param nanos time spent in the phase, in nanoseconds
+	 */
+	default void onPhase(@Nonnull Phase phase, long nanos) {
+	}
+
+	/**
+	 * Called when a body capture is formatted.
+	 *
+	 * @param capturedBytes number of captured bytes
+	 * @param omittedBytes  number of bytes omitted due to the capture limit
+	 * @param truncated     <code>true</code> if the body is logged truncated, due to the capture limit or because it
+	 *                      was closed before it was fully read
+	 */
+	default void onCapture(long capturedBytes, long omittedBytes, boolean truncated) {
+	}
+
+	/**
+	 * Called when an HTTP call is not logged.
+	 *
+	 * @param reason why the call was skipped
+	 */
+	default void onSkip(@Nonnull SkipReason reason) {
+	}
+
+	/**
+	 * Called when a log entry is dropped by the asynchronous emitter, due to queue overflow or the shutdown timeout.
+	 */
+	default void onDrop() {
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Factory class to create log requests for entries which are emitted outside the thread they belong to.
+ */
+public class LogRequestFactory {
+
+	/**
+	 * Create a log request.
+	 *
+	 * @param itemUuid  UUID of the test item the entry belongs to
+	 * @param level     log level
+	 * @param time      log time
+	 * @param message   log message
+	 * @param data      attachment data, or <code>null</code> for text entries
+	 * @param mediaType attachment media type
+	 * @return log request
+	 */
+	@Nonnull
+	public static SaveLogRQ create(@Nullable String itemUuid, @Nonnull String level, @Nonnull Instant time,
+			@Nullable String message, @Nullable byte[] data, @Nullable String mediaType) {
+		SaveLogRQ rq = new SaveLogRQ();
+		rq.setItemUuid(itemUuid);
+		rq.setLevel(level);
+		rq.setLogTime(time);
+		rq.setMessage(message);
+		if (data != null) {
+			SaveLogRQ.File file = new SaveLogRQ.File();
+			file.setName(UUID.randomUUID().toString());
+			file.setContentType(mediaType);
+			file.setContent(data);
+			rq.setFile(file);
+		}
+		return rq;
+	}
+}
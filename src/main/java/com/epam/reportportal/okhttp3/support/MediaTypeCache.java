@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.formatting.http.HttpFormatUtils;
+import com.epam.reportportal.formatting.http.entities.BodyType;
+import okhttp3.MediaType;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of mime types, {@link BodyType}s and charsets resolved from OkHttp {@link MediaType}s with a fixed body type
+ * map. A test suite uses a handful of media types, so each of them is parsed and looked up once instead of on every
+ * request, response and multipart part. The cache is bound to the body type map it was created with, create a new one
+ * when the map changes.
+ */
+public class MediaTypeCache {
+
+	public static final int MAX_SIZE = 256;
+
+	private static final String BOUNDARY_PARAMETER = "boundary";
+
+	private final Map<String, BodyType> bodyTypeMap;
+	private final Map<MediaType, Resolved> cache = new ConcurrentHashMap<>();
+	private final Resolved untyped;
+
+	/**
+	 * @param bodyTypeMap mime type to body type map
+	 */
+	public MediaTypeCache(@Nonnull Map<String, BodyType> bodyTypeMap) {
+		this.bodyTypeMap = bodyTypeMap;
+		untyped = resolve(null, bodyTypeMap);
+	}
+
+	/**
+	 * Resolve the given media type with the given body type map, without caching.
+	 *
+	 * @param mediaType   media type of a body, or <code>null</code> if the body has no content type
+	 * @param bodyTypeMap mime type to body type map
+	 * @return resolved mime type, body type and charset
+	 */
+	@Nonnull
+	public static Resolved resolve(@Nullable MediaType mediaType, @Nonnull Map<String, BodyType> bodyTypeMap) {
+		String contentType = mediaType == null ? null : mediaType.toString();
+		return new Resolved(
+				HttpFormatUtils.getMimeType(contentType),
+				HttpFormatUtils.getBodyType(contentType, bodyTypeMap),
+				mediaType == null ? null : mediaType.charset()
+		);
+	}
+
+	/**
+	 * @return body type map the cache was created with
+	 */
+	@Nonnull
+	public Map<String, BodyType> getBodyTypeMap() {
+		return bodyTypeMap;
+	}
+
+	/**
+	 * Resolve the given media type, the result is cached.
+	 *
+	 * @param mediaType media type of a body, or <code>null</code> if the body has no content type
+	 * @return resolved mime type, body type and charset
+	 */
+	@Nonnull
+	public Resolved resolve(@Nullable MediaType mediaType) {
+		if (mediaType == null) {
+			return untyped;
+		}
+		Resolved result = cache.get(mediaType);
+		if (result != null) {
+			return result;
+		}
+		result = resolve(mediaType, bodyTypeMap);
+		// Multipart boundaries are unique per body, caching them would only push out the useful entries
+		if (cache.size() < MAX_SIZE && mediaType.parameter(BOUNDARY_PARAMETER) == null) {
+			cache.putIfAbsent(mediaType, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of cached media types
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Mime type, body type and charset of a media type.
+	 */
+	public static class Resolved {
+		private final String mimeType;
+		private final BodyType bodyType;
+		private final Charset charset;
+
+		private Resolved(@Nullable String mimeType, @Nonnull BodyType bodyType, @Nullable Charset charset) {
+			this.mimeType = mimeType;
+			this.bodyType = bodyType;
+			this.charset = charset;
+		}
+
+		/**
+		 * @return mime type without parameters
+		 */
+		@Nullable
+		public String getMimeType() {
+			return mimeType;
+		}
+
+		@Nonnull
+		public BodyType getBodyType() {
+			return bodyType;
+		}
+
+		/**
+		 * @return charset declared in the media type, or <code>null</code> if there is none or it's not supported
+		 */
+		@Nullable
+		public Charset getDeclaredCharset() {
+			return charset;
+		}
+
+		/**
+		 * @return declared charset or UTF-8 by default
+		 */
+		@Nonnull
+		public Charset getCharset() {
+			return charset == null ? StandardCharsets.UTF_8 : charset;
+		}
+	}
+}
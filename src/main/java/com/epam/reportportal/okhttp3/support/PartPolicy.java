@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.formatting.http.entities.BodyType;
+import okhttp3.MultipartBody;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Decides how a part of a multipart request is logged. The decision is made before the part is written, so summarized
+ * parts are never kept in memory.
+ */
+@FunctionalInterface
+public interface PartPolicy {
+
+	enum Mode {
+		/**
+		 * Log part content, up to the capture limit of its body type
+		 */
+		CONTENT,
+		/**
+		 * Log only part size and SHA-256 hash instead of its content
+		 */
+		SUMMARY
+	}
+
+	/**
+	 * @param part     multipart request part
+	 * @param bodyType body type of the part
+	 * @return how to log the part
+	 */
+	@Nonnull
+	Mode apply(@Nonnull MultipartBody.Part part, @Nonnull BodyType bodyType);
+
+	/**
+	 * Log content of every part.
+	 *
+	 * @return part policy
+	 */
+	@Nonnull
+	static PartPolicy content() {
+		return (part, bodyType) -> Mode.CONTENT;
+	}
+
+	/**
+	 * Log content of text parts and summarize all others.
+	 *
+	 * @return part policy
+	 */
+	@Nonnull
+	static PartPolicy summarizeBinary() {
+		return (part, bodyType) -> BodyType.TEXT == bodyType ? Mode.CONTENT : Mode.SUMMARY;
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.ByteString;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Least recently used cache of content prettifier results, bounded by the total size of cached results. Entries are
+ * keyed by content type and SHA-256 hash of the raw body, so repeated payloads are prettified only once and raw bodies
+ * are not kept in memory. The hash is computed over UTF-16 chars of the body in small chunks, without an encoded copy
+ * of the whole body.
+ */
+public class PrettifierCache {
+
+	// Approximate heap size of an entry besides the result characters: key, hash, map node and string headers
+	private static final long ENTRY_OVERHEAD = 160;
+	private static final int HASH_CHUNK_CHARS = 1024;
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	});
+
+	private final long maxBytes;
+	private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final PrettifierMapMemo memo = new PrettifierMapMemo(this::wrap);
+	private long size;
+
+	/**
+	 * @param maxBytes maximum approximate size of cached results in bytes
+	 */
+	public PrettifierCache(long maxBytes) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache size should be positive: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	@Nonnull
+	private static ByteString sha256(@Nonnull String body) {
+		MessageDigest digest = SHA_256.get();
+		char[] chars = new char[Math.min(body.length(), HASH_CHUNK_CHARS)];
+		byte[] bytes = new byte[chars.length * 2];
+		for (int start = 0, length = body.length(); start < length; start += chars.length) {
+			int count = Math.min(chars.length, length - start);
+			body.getChars(start, start + count, chars, 0);
+			for (int i = 0; i < count; i++) {
+				bytes[i * 2] = (byte) (chars[i] >> 8);
+				bytes[i * 2 + 1] = (byte) chars[i];
+			}
+			digest.update(bytes, 0, count * 2);
+		}
+		// digest() resets the instance for the next call
+		return ByteString.of(digest.digest());
+	}
+
+	private static long sizeOf(@Nonnull String value) {
+		return ENTRY_OVERHEAD + 2L * value.length();
+	}
+
+	@Nullable
+	private synchronized String get(@Nonnull Key key) {
+		return entries.get(key);
+	}
+
+	private synchronized void put(@Nonnull Key key, @Nonnull String value) {
+		long valueSize = sizeOf(value);
+		if (valueSize > maxBytes) {
+			return;
+		}
+		String previous = entries.put(key, value);
+		if (previous != null) {
+			size -= sizeOf(previous);
+		}
+		size += valueSize;
+		Iterator<String> eldest = entries.values().iterator();
+		while (size > maxBytes && eldest.hasNext()) {
+			size -= sizeOf(eldest.next());
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Wrap a prettifier to cache its results.
+	 *
+	 * @param contentType content type the prettifier is registered for
+	 * @param prettifier  prettifier to wrap
+	 * @return caching prettifier
+	 */
+	@Nonnull
+	public Function<String, String> wrap(@Nonnull String contentType, @Nonnull Function<String, String> prettifier) {
+		return body -> {
+			if (body == null || body.isEmpty()) {
+				return prettifier.apply(body);
+			}
+			Key key = new Key(contentType, sha256(body));
+			String result = get(key);
+			if (result != null) {
+				hits.increment();
+				return result;
+			}
+			misses.increment();
+			result = prettifier.apply(body);
+			if (result != null) {
+				put(key, result);
+			}
+			return result;
+		};
+	}
+
+	/**
+	 * Wrap every prettifier in the map to cache its results. The last wrapped map is remembered, so calling this method
+	 * with the same map again is cheap.
+	 *
+	 * @param prettifiers content type to prettifier map
+	 * @return map of caching prettifiers
+	 */
+	@Nonnull
+	public Map<String, Function<String, String>> wrap(@Nonnull Map<String, Function<String, String>> prettifiers) {
+		return memo.wrap(prettifiers);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return approximate size of cached results in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return number of cached results
+	 */
+	public synchronized int getCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Drop all cached results, hit and miss counters are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "PrettifierCache{hits=" + getHits() + ", misses=" + getMisses() + ", count=" + getCount() + ", size="
+				+ getSize() + "}";
+	}
+
+	private static final class Key {
+		private final String contentType;
+		private final ByteString hash;
+
+		Key(@Nonnull String contentType, @Nonnull ByteString hash) {
+			this.contentType = contentType;
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return contentType.equals(key.contentType) && hash.equals(key.hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(contentType, hash);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Protects the calling thread from slow content prettifiers. Bodies longer than the size threshold are logged raw, and
+ * if a time budget is set, prettification runs on a bounded pool of daemon threads and the raw body is logged if it
+ * does not finish in time. A prettifier which ignores interruption keeps its thread busy after the timeout, so when all
+ * threads are busy, bodies are logged raw right away instead of starting more threads. Bodies whose prettifier fails
+ * are logged raw as well.
+ */
+public class PrettifierGuard implements Closeable {
+
+	public static final int UNLIMITED_SIZE = Integer.MAX_VALUE;
+	public static final long NO_TIME_BUDGET = 0;
+	public static final int DEFAULT_MAX_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static final AtomicInteger GUARD_COUNTER = new AtomicInteger();
+
+	private final int maxLength;
+	private final long timeBudget;
+	private final ExecutorService executor;
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final PrettifierMapMemo memo = new PrettifierMapMemo((type, prettifier) -> wrap(prettifier));
+
+	/**
+	 * @param maxLength  maximum body length in characters to prettify
+	 * @param timeBudget maximum time in milliseconds to spend on prettification of a body, or {@link #NO_TIME_BUDGET}
+	 *                   to prettify on the calling thread without a limit
+	 * @param maxThreads maximum number of prettifier threads, used only with a time budget
+	 */
+	public PrettifierGuard(int maxLength, long timeBudget, int maxThreads) {
+		if (maxLength < 0) {
+			throw new IllegalArgumentException("Maximum body length should not be negative: " + maxLength);
+		}
+		if (timeBudget < 0) {
+			throw new IllegalArgumentException("Time budget should not be negative: " + timeBudget);
+		}
+		if (maxThreads <= 0) {
+			throw new IllegalArgumentException("Number of threads should be positive: " + maxThreads);
+		}
+		this.maxLength = maxLength;
+		this.timeBudget = timeBudget;
+		if (timeBudget > 0) {
+			String namePrefix = "rp-okhttp3-prettifier-" + GUARD_COUNTER.incrementAndGet() + "-";
+			AtomicInteger threadCounter = new AtomicInteger();
+			// No queue: a body either gets an idle or a new thread within the limit, or is rejected
+			executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+				Thread t = new Thread(r, namePrefix + threadCounter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * @param maxLength  maximum body length in characters to prettify
+	 * @param timeBudget maximum time in milliseconds to spend on prettification of a body, or {@link #NO_TIME_BUDGET}
+	 *                   to prettify on the calling thread without a limit
+	 */
+	public PrettifierGuard(int maxLength, long timeBudget) {
+		this(maxLength, timeBudget, DEFAULT_MAX_THREADS);
+	}
+
+	/**
+	 * @param maxLength maximum body length in characters to prettify
+	 */
+	public PrettifierGuard(int maxLength) {
+		this(maxLength, NO_TIME_BUDGET);
+	}
+
+	private String apply(@Nonnull Function<String, String> prettifier, @Nonnull String body) {
+		try {
+			return prettifier.apply(body);
+		} catch (RuntimeException e) {
+			failed.increment();
+			return body;
+		}
+	}
+
+	private String applyWithBudget(@Nonnull Function<String, String> prettifier, @Nonnull String body) {
+		Future<String> result;
+		try {
+			result = executor.submit(() -> apply(prettifier, body));
+		} catch (RejectedExecutionException e) {
+			if (executor.isShutdown()) {
+				// The guard is closed
+				return apply(prettifier, body);
+			}
+			rejected.increment();
+			return body;
+		}
+		try {
+			return result.get(timeBudget, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			timedOut.increment();
+			return body;
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			return body;
+		} catch (ExecutionException e) {
+			failed.increment();
+			return body;
+		}
+	}
+
+	/**
+	 * Wrap a prettifier to guard it.
+	 *
+	 * @param prettifier prettifier to wrap
+	 * @return guarded prettifier
+	 */
+	@Nonnull
+	public Function<String, String> wrap(@Nonnull Function<String, String> prettifier) {
+		return body -> {
+			if (body == null || body.isEmpty()) {
+				return body;
+			}
+			if (body.length() > maxLength) {
+				skipped.increment();
+				return body;
+			}
+			return executor == null ? apply(prettifier, body) : applyWithBudget(prettifier, body);
+		};
+	}
+
+	/**
+	 * Wrap every prettifier in the map to guard it. Wrapping the map which was wrapped last time returns the same
+	 * result.
+	 *
+	 * @param prettifiers content type to prettifier map
+	 * @return map of guarded prettifiers
+	 */
+	@Nonnull
+	public Map<String, Function<String, String>> wrap(@Nonnull Map<String, Function<String, String>> prettifiers) {
+		return memo.wrap(prettifiers);
+	}
+
+	/**
+	 * @return number of bodies logged raw due to the size threshold
+	 */
+	public long getSkipped() {
+		return skipped.sum();
+	}
+
+	/**
+	 * @return number of bodies logged raw due to the time budget
+	 */
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	/**
+	 * @return number of bodies logged raw due to a prettifier failure
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * @return number of bodies logged raw because all prettifier threads were busy
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Stop prettifier threads, if any. Bodies are prettified on the calling thread after that.
+	 */
+	@Override
+	public void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+}
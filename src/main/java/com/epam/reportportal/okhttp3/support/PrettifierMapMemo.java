@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import jakarta.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Remembers the last prettifier map wrapped by a decorator along with the result, so the interceptor can wrap its map
+ * on every call at the cost of a reference check and a pass over its entries. The entries are compared by identity
+ * with a snapshot taken at wrap time, so a map changed in place is wrapped again. The source map, its snapshot and the
+ * result are published together, so a reader never sees the result of one map paired with another.
+ */
+final class PrettifierMapMemo {
+
+	private final BiFunction<String, Function<String, String>, Function<String, String>> decorator;
+
+	private volatile Entry last;
+
+	/**
+	 * @param decorator function which wraps a prettifier registered for the given content type
+	 */
+	PrettifierMapMemo(@Nonnull BiFunction<String, Function<String, String>, Function<String, String>> decorator) {
+		this.decorator = decorator;
+	}
+
+	@Nonnull
+	Map<String, Function<String, String>> wrap(@Nonnull Map<String, Function<String, String>> prettifiers) {
+		Entry entry = last;
+		if (entry != null && entry.source == prettifiers && entry.matches(prettifiers)) {
+			return entry.wrapped;
+		}
+		Map<String, Function<String, String>> snapshot = new HashMap<>(prettifiers);
+		Map<String, Function<String, String>> wrapped = new HashMap<>(snapshot.size() * 2);
+		snapshot.forEach((type, prettifier) -> wrapped.put(type, decorator.apply(type, prettifier)));
+		entry = new Entry(prettifiers, snapshot, Collections.unmodifiableMap(wrapped));
+		last = entry;
+		return entry.wrapped;
+	}
+
+	private static final class Entry {
+		private final Map<String, Function<String, String>> source;
+		private final Map<String, Function<String, String>> snapshot;
+		private final Map<String, Function<String, String>> wrapped;
+
+		Entry(@Nonnull Map<String, Function<String, String>> source,
+				@Nonnull Map<String, Function<String, String>> snapshot,
+				@Nonnull Map<String, Function<String, String>> wrapped) {
+			this.source = source;
+			this.snapshot = snapshot;
+			this.wrapped = wrapped;
+		}
+
+		boolean matches(@Nonnull Map<String, Function<String, String>> prettifiers) {
+			if (prettifiers.size() != snapshot.size()) {
+				return false;
+			}
+			for (Map.Entry<String, Function<String, String>> e : prettifiers.entrySet()) {
+				if (snapshot.get(e.getKey()) != e.getValue()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.Request;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Declarative request filter, a request matches if it matches every rule set in the filter. Unlike arbitrary
+ * predicates, such filters are compiled by {@link RequestMatcher} into a lookup by host and a trie over path segments,
+ * so adding more of them barely affects the cost of a call:
+ * <pre>
+ * RequestFilter.builder().host("*.example.com").pathGlob("/api/&#42;/health").method("GET").build();
+ * </pre>
+ */
+public class RequestFilter implements Predicate<Request> {
+
+	static final String ANY_SEGMENTS = "**";
+
+	private final String host;
+	private final List<String> pathSegments;
+	private final boolean pathPrefix;
+	private final Set<String> methods;
+	private final List<String> headers;
+	private volatile RequestMatcher matcher;
+
+	private RequestFilter(@Nonnull Builder builder) {
+		host = builder.host;
+		pathSegments = Collections.unmodifiableList(new ArrayList<>(builder.pathSegments));
+		pathPrefix = builder.pathPrefix;
+		methods = builder.methods.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(builder.methods));
+		headers = Collections.unmodifiableList(new ArrayList<>(builder.headers));
+	}
+
+	/**
+	 * @return lower case host, a host suffix starting with <code>*.</code>, or <code>null</code> if any host matches
+	 */
+	@Nullable
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return path segments, which may contain <code>*</code> and <code>?</code> wildcards, <code>**</code> matches any
+	 * number of segments
+	 */
+	@Nonnull
+	public List<String> getPathSegments() {
+		return pathSegments;
+	}
+
+	/**
+	 * @return <code>true</code> if the path matches any path starting with the path segments
+	 */
+	public boolean isPathPrefix() {
+		return pathPrefix;
+	}
+
+	/**
+	 * @return upper case HTTP methods, or <code>null</code> if any method matches
+	 */
+	@Nullable
+	public Set<String> getMethods() {
+		return methods;
+	}
+
+	/**
+	 * @return names of headers which should be present in a request
+	 */
+	@Nonnull
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @param host lower case request host
+	 * @return <code>true</code> if the host matches the host rule of the filter
+	 */
+	boolean matchesHost(@Nonnull String host) {
+		if (this.host == null) {
+			return true;
+		}
+		return this.host.startsWith("*.") ? host.endsWith(this.host.substring(1)) : this.host.equals(host);
+	}
+
+	/**
+	 * @return <code>true</code> if the filter has no rules except the host one
+	 */
+	boolean isHostOnly() {
+		return pathSegments.isEmpty() && pathPrefix && methods == null && headers.isEmpty();
+	}
+
+	/**
+	 * Check the rules which are not covered by the host and path lookup.
+	 *
+	 * @param request request to check
+	 * @return <code>true</code> if the request method and headers match the filter
+	 */
+	boolean matchesMethodAndHeaders(@Nonnull Request request) {
+		if (methods != null && !methods.contains(request.method())) {
+			return false;
+		}
+		for (int i = 0; i < headers.size(); i++) {
+			if (request.header(headers.get(i)) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check a single request against the filter. Use {@link RequestMatcher} to check against many filters at once.
+	 *
+	 * @param request request to check
+	 * @return <code>true</code> if the request matches the filter
+	 */
+	@Override
+	public boolean test(@Nonnull Request request) {
+		RequestMatcher result = matcher;
+		if (result == null) {
+			result = RequestMatcher.compile(Collections.singletonList(this), Collections.emptyList());
+			matcher = result;
+		}
+		return result.matches(request);
+	}
+
+	@Override
+	public String toString() {
+		return "RequestFilter{host=" + host + ", path=/" + String.join("/", pathSegments) + (pathPrefix ? "/**" : "")
+				+ ", methods=" + methods + ", headers=" + headers + "}";
+	}
+
+	@Nonnull
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private String host;
+		private List<String> pathSegments = Collections.emptyList();
+		private boolean pathPrefix = true;
+		private final Set<String> methods = new HashSet<>();
+		private final List<String> headers = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		@Nonnull
+		private static List<String> split(@Nonnull String path) {
+			List<String> result = new ArrayList<>();
+			for (String segment : path.split("/")) {
+				if (!segment.isEmpty()) {
+					result.add(segment);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * @param host exact host name, or a host suffix starting with <code>*.</code> to match any subdomain, e.g.
+		 *             <code>*.example.com</code>
+		 * @return self
+		 */
+		@Nonnull
+		public Builder host(@Nonnull String host) {
+			this.host = host.toLowerCase(Locale.ROOT);
+			return this;
+		}
+
+		/**
+		 * Match paths which start with the given segments, e.g. <code>/health</code> matches <code>/health</code> and
+		 * <code>/health/live</code>, but not <code>/healthz</code>.
+		 *
+		 * @param pathPrefix path prefix
+		 * @return self
+		 */
+		@Nonnull
+		public Builder pathPrefix(@Nonnull String pathPrefix) {
+			pathSegments = split(pathPrefix);
+			this.pathPrefix = true;
+			return this;
+		}
+
+		/**
+		 * Match whole paths with a glob: <code>*</code> and <code>?</code> match any chars and a single char inside a
+		 * segment, <code>**</code> matches any number of segments, e.g. <code>/api/&#42;&#42;/*.png</code>.
+		 *
+		 * @param pathGlob path glob
+		 * @return self
+		 */
+		@Nonnull
+		public Builder pathGlob(@Nonnull String pathGlob) {
+			pathSegments = split(pathGlob);
+			pathPrefix = false;
+			return this;
+		}
+
+		/**
+		 * @param method HTTP method to match, may be called several times to match any of the methods
+		 * @return self
+		 */
+		@Nonnull
+		public Builder method(@Nonnull String method) {
+			methods.add(method.toUpperCase(Locale.ROOT));
+			return this;
+		}
+
+		/**
+		 * @param name name of a header which should be present in a request, may be called several times to require
+		 *             all of the headers
+		 * @return self
+		 */
+		@Nonnull
+		public Builder header(@Nonnull String name) {
+			headers.add(name);
+			return this;
+		}
+
+		@Nonnull
+		public RequestFilter build() {
+			return new RequestFilter(this);
+		}
+	}
+}
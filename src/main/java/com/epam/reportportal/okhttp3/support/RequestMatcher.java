@@ -0,0 +1,235 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+import jakarta.annotation.Nonnull;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable matcher compiled from {@link RequestFilter}s and arbitrary predicates. Declarative filters are looked up by
+ * host and then walked down a trie over URL path segments, so only filters which share the request's host and path
+ * are checked for method and headers. Predicates are checked one by one after that. A matcher is never modified, a
+ * new one is compiled when the filters change, so it can be used from any thread without locking.
+ */
+public class RequestMatcher {
+
+	public static final RequestMatcher EMPTY = compile(Collections.emptyList(), Collections.emptyList());
+
+	private final Map<String, Node> hosts = new HashMap<>();
+	private final List<String> hostSuffixes = new ArrayList<>();
+	private final List<Node> hostSuffixNodes = new ArrayList<>();
+	private final Node anyHost = new Node();
+	private final boolean hasFilters;
+	private final List<Predicate<Request>> predicates;
+
+	private RequestMatcher(@Nonnull Collection<RequestFilter> filters, @Nonnull Collection<Predicate<Request>> predicates) {
+		for (RequestFilter filter : filters) {
+			hostNode(filter.getHost()).add(filter, 0);
+		}
+		hasFilters = !filters.isEmpty();
+		this.predicates = new ArrayList<>(predicates);
+	}
+
+	@Nonnull
+	private Node hostNode(String host) {
+		if (host == null) {
+			return anyHost;
+		}
+		if (host.startsWith("*.")) {
+			String suffix = host.substring(1);
+			int index = hostSuffixes.indexOf(suffix);
+			if (index >= 0) {
+				return hostSuffixNodes.get(index);
+			}
+			Node node = new Node();
+			hostSuffixes.add(suffix);
+			hostSuffixNodes.add(node);
+			return node;
+		}
+		return hosts.computeIfAbsent(host, h -> new Node());
+	}
+
+	/**
+	 * Compile filters into a matcher.
+	 *
+	 * @param filters    declarative filters
+	 * @param predicates arbitrary request predicates, checked if none of the declarative filters match
+	 * @return request matcher
+	 */
+	@Nonnull
+	public static RequestMatcher compile(@Nonnull Collection<RequestFilter> filters,
+			@Nonnull Collection<Predicate<Request>> predicates) {
+		return new RequestMatcher(filters, predicates);
+	}
+
+	/**
+	 * @return <code>true</code> if the matcher has no filters and predicates and so never matches
+	 */
+	public boolean isEmpty() {
+		return !hasFilters && predicates.isEmpty();
+	}
+
+	/**
+	 * @param request request to check
+	 * @return <code>true</code> if any of the filters or predicates matches the request
+	 */
+	public boolean matches(@Nonnull Request request) {
+		if (hasFilters && matchesFilters(request)) {
+			return true;
+		}
+		for (int i = 0; i < predicates.size(); i++) {
+			if (predicates.get(i).test(request)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean matchesFilters(@Nonnull Request request) {
+		HttpUrl url = request.url();
+		String host = url.host();
+		List<String> segments = url.pathSegments();
+		int size = segments.size();
+		// A trailing slash results in an empty last segment
+		if (size > 0 && segments.get(size - 1).isEmpty()) {
+			size--;
+		}
+		Node node = hosts.get(host);
+		if (node != null && node.matches(request, segments, 0, size)) {
+			return true;
+		}
+		for (int i = 0; i < hostSuffixes.size(); i++) {
+			if (host.endsWith(hostSuffixes.get(i)) && hostSuffixNodes.get(i).matches(request, segments, 0, size)) {
+				return true;
+			}
+		}
+		return anyHost.matches(request, segments, 0, size);
+	}
+
+	/**
+	 * Match a path segment against a glob, where <code>*</code> matches any chars and <code>?</code> matches a single
+	 * char.
+	 *
+	 * @param glob    segment glob
+	 * @param segment path segment
+	 * @return <code>true</code> if the segment matches the glob
+	 */
+	static boolean globMatches(@Nonnull String glob, @Nonnull String segment) {
+		int g = 0;
+		int s = 0;
+		int star = -1;
+		int starMatch = 0;
+		while (s < segment.length()) {
+			if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == segment.charAt(s))) {
+				g++;
+				s++;
+			} else if (g < glob.length() && glob.charAt(g) == '*') {
+				star = g++;
+				starMatch = s;
+			} else if (star >= 0) {
+				g = star + 1;
+				s = ++starMatch;
+			} else {
+				return false;
+			}
+		}
+		while (g < glob.length() && glob.charAt(g) == '*') {
+			g++;
+		}
+		return g == glob.length();
+	}
+
+	private static boolean matchesAny(@Nonnull List<RequestFilter> filters, @Nonnull Request request) {
+		for (int i = 0; i < filters.size(); i++) {
+			if (filters.get(i).matchesMethodAndHeaders(request)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Node {
+		private final Map<String, Node> segments = new HashMap<>();
+		private final List<String> globs = new ArrayList<>();
+		private final List<Node> globNodes = new ArrayList<>();
+		private Node anySegments;
+		private final List<RequestFilter> pathFilters = new ArrayList<>();
+		private final List<RequestFilter> prefixFilters = new ArrayList<>();
+
+		private void add(@Nonnull RequestFilter filter, int index) {
+			List<String> path = filter.getPathSegments();
+			if (index == path.size()) {
+				(filter.isPathPrefix() ? prefixFilters : pathFilters).add(filter);
+				return;
+			}
+			String segment = path.get(index);
+			Node child;
+			if (RequestFilter.ANY_SEGMENTS.equals(segment)) {
+				if (anySegments == null) {
+					anySegments = new Node();
+				}
+				child = anySegments;
+			} else if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+				int globIndex = globs.indexOf(segment);
+				if (globIndex >= 0) {
+					child = globNodes.get(globIndex);
+				} else {
+					child = new Node();
+					globs.add(segment);
+					globNodes.add(child);
+				}
+			} else {
+				child = segments.computeIfAbsent(segment, s -> new Node());
+			}
+			child.add(filter, index + 1);
+		}
+
+		private boolean matches(@Nonnull Request request, @Nonnull List<String> path, int index, int size) {
+			if (!prefixFilters.isEmpty() && matchesAny(prefixFilters, request)) {
+				return true;
+			}
+			if (index == size && !pathFilters.isEmpty() && matchesAny(pathFilters, request)) {
+				return true;
+			}
+			if (anySegments != null) {
+				for (int i = index; i <= size; i++) {
+					if (anySegments.matches(request, path, i, size)) {
+						return true;
+					}
+				}
+			}
+			if (index == size) {
+				return false;
+			}
+			String segment = path.get(index);
+			Node child = segments.get(segment);
+			if (child != null && child.matches(request, path, index + 1, size)) {
+				return true;
+			}
+			for (int i = 0; i < globs.size(); i++) {
+				if (globMatches(globs.get(i), segment) && globNodes.get(i).matches(request, path, index + 1, size)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import jakarta.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Common response filters. Filters look only at the status line and headers, so a filtered out response body is
+ * passed to the caller untouched.
+ */
+public class ResponseFilters {
+
+	/**
+	 * @param codes status codes to match
+	 * @return filter which matches responses with any of the given status codes
+	 */
+	@Nonnull
+	public static Predicate<Response> statusIn(int... codes) {
+		int[] sorted = Arrays.copyOf(codes, codes.length);
+		Arrays.sort(sorted);
+		return response -> Arrays.binarySearch(sorted, response.code()) >= 0;
+	}
+
+	/**
+	 * @return filter which matches 2xx responses
+	 */
+	@Nonnull
+	public static Predicate<Response> successful() {
+		return Response::isSuccessful;
+	}
+
+	/**
+	 * @param mimeTypePrefix beginning of the mime type, e.g. <code>image/</code>
+	 * @return filter which matches responses with a body of the given type
+	 */
+	@Nonnull
+	public static Predicate<Response> contentTypeStartsWith(@Nonnull String mimeTypePrefix) {
+		return response -> {
+			ResponseBody body = response.body();
+			MediaType type = body == null ? null : body.contentType();
+			return type != null && (type.type() + "/" + type.subtype()).regionMatches(
+					true,
+					0,
+					mimeTypePrefix,
+					0,
+					mimeTypePrefix.length()
+			);
+		};
+	}
+
+	/**
+	 * @param maxBytes content length threshold
+	 * @return filter which matches responses with known content length greater than the given one
+	 */
+	@Nonnull
+	public static Predicate<Response> contentLengthAbove(long maxBytes) {
+		return response -> {
+			ResponseBody body = response.body();
+			return body != null && body.contentLength() > maxBytes;
+		};
+	}
+
+	/**
+	 * @param name header name
+	 * @return filter which matches responses with the given header
+	 */
+	@Nonnull
+	public static Predicate<Response> hasHeader(@Nonnull String name) {
+		return response -> response.header(name) != null;
+	}
+}
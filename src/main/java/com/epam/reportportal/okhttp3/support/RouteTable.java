@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.Request;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable ordered table of values bound to routes declared with {@link RequestFilter}s, the first matching route
+ * wins. Routes whose host rule matches a host are selected once per host and cached, so resolving a request costs a
+ * map lookup, plus a check of the few routes of that host which also have path, method or header rules.
+ *
+ * @param <T> type of values bound to routes
+ */
+public class RouteTable<T> {
+
+	public static final int MAX_CACHED_HOSTS = 1000;
+
+	private static final RouteTable<?> EMPTY = new RouteTable<>(Collections.emptyList());
+
+	private final List<Route<T>> routes;
+	private final Map<String, List<Route<T>>> hostRoutes = new ConcurrentHashMap<>();
+
+	private RouteTable(@Nonnull List<Route<T>> routes) {
+		this.routes = routes;
+	}
+
+	@Nonnull
+	@SuppressWarnings("unchecked")
+	public static <T> RouteTable<T> empty() {
+		return (RouteTable<T>) EMPTY;
+	}
+
+	/**
+	 * Create a table with one more route, which is checked after the routes of this table.
+	 *
+	 * @param route route of the value
+	 * @param value value to bind to the route
+	 * @return new table, this one is left unchanged
+	 */
+	@Nonnull
+	public RouteTable<T> with(@Nonnull RequestFilter route, @Nonnull T value) {
+		List<Route<T>> result = new ArrayList<>(routes);
+		result.add(new Route<>(route, value));
+		return new RouteTable<>(Collections.unmodifiableList(result));
+	}
+
+	public boolean isEmpty() {
+		return routes.isEmpty();
+	}
+
+	public int size() {
+		return routes.size();
+	}
+
+	@Nonnull
+	private List<Route<T>> select(@Nonnull String host) {
+		List<Route<T>> result = new ArrayList<>();
+		for (Route<T> route : routes) {
+			if (route.filter.matchesHost(host)) {
+				result.add(route);
+			}
+		}
+		return result.isEmpty() ? Collections.emptyList() : result;
+	}
+
+	/**
+	 * Find the value of the first route which matches the request.
+	 *
+	 * @param request request to resolve
+	 * @return bound value or <code>null</code> if no route matches
+	 */
+	@Nullable
+	public T resolve(@Nonnull Request request) {
+		if (routes.isEmpty()) {
+			return null;
+		}
+		// HttpUrl hosts are already canonical and lower case
+		String host = request.url().host();
+		List<Route<T>> candidates = hostRoutes.get(host);
+		if (candidates == null) {
+			candidates = select(host);
+			// Calls to many distinct hosts should not grow the cache unbounded, they are resolved each time instead
+			if (hostRoutes.size() < MAX_CACHED_HOSTS) {
+				hostRoutes.putIfAbsent(host, candidates);
+			}
+		}
+		for (int i = 0; i < candidates.size(); i++) {
+			Route<T> route = candidates.get(i);
+			if (route.hostOnly || route.filter.test(request)) {
+				return route.value;
+			}
+		}
+		return null;
+	}
+
+	private static class Route<T> {
+		private final RequestFilter filter;
+		private final T value;
+		private final boolean hostOnly;
+
+		Route(@Nonnull RequestFilter filter, @Nonnull T value) {
+			this.filter = filter;
+			this.value = value;
+			hostOnly = filter.isHostOnly();
+		}
+	}
+}
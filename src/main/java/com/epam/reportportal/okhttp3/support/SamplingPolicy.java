@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.Request;
+
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an HTTP call should be logged. The decision is made before any body is read, so skipped calls cost
+ * next to nothing.
+ */
+@FunctionalInterface
+public interface SamplingPolicy {
+
+	/**
+	 * @param request request to check
+	 * @return <code>true</code> if the call should be logged, <code>false</code> otherwise
+	 */
+	boolean sample(@Nonnull Request request);
+
+	/**
+	 * Combine two policies, a call is logged only if both of them sample it.
+	 *
+	 * @param other policy to check after this one
+	 * @return combined policy
+	 */
+	@Nonnull
+	default SamplingPolicy and(@Nonnull SamplingPolicy other) {
+		return request -> sample(request) && other.sample(request);
+	}
+
+	/**
+	 * Log a fixed random share of calls.
+	 *
+	 * @param ratio share of calls to log, from 0 to 1
+	 * @return sampling policy
+	 */
+	@Nonnull
+	static SamplingPolicy ratio(double ratio) {
+		if (ratio < 0 || ratio > 1) {
+			throw new IllegalArgumentException("Sampling ratio should be between 0 and 1: " + ratio);
+		}
+		return request -> ThreadLocalRandom.current().nextDouble() < ratio;
+	}
+
+	/**
+	 * Log no more than the given number of calls per second, using a lock-free token bucket.
+	 *
+	 * @param permitsPerSecond bucket refill rate
+	 * @param burst            bucket size, i.e. how many calls may be logged at once after a quiet period
+	 * @return sampling policy
+	 */
+	@Nonnull
+	static SamplingPolicy rateLimit(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("Rate limit should be positive: " + permitsPerSecond);
+		}
+		if (burst <= 0) {
+			throw new IllegalArgumentException("Burst size should be positive: " + burst);
+		}
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+		long tolerance = interval * (burst - 1);
+		// Theoretical arrival time of the next permit, see generic cell rate algorithm
+		AtomicLong nextPermit = new AtomicLong(System.nanoTime());
+		return request -> {
+			long now = System.nanoTime();
+			while (true) {
+				long next = nextPermit.get();
+				if (next - now > tolerance) {
+					return false;
+				}
+				if (nextPermit.compareAndSet(next, Math.max(next, now) + interval)) {
+					return true;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Log no more than the given number of calls per second.
+	 *
+	 * @param permitsPerSecond maximum number of calls to log per second
+	 * @return sampling policy
+	 */
+	@Nonnull
+	static SamplingPolicy rateLimit(double permitsPerSecond) {
+		return rateLimit(permitsPerSecond, 1);
+	}
+}
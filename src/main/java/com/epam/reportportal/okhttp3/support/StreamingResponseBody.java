@@ -0,0 +1,229 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.*;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Response body wrapper for long-lived streams, e.g. Server-Sent Events. Data is passed to the caller as soon as it
+ * arrives, while a copy is split into events and handed to the batch callback every N events, or every T milliseconds
+ * by a shared timer, see {@link BatchScheduler}, so events of a sparse or hung stream are not held until the next
+ * data arrives. The rest of the events are handed over when the caller reaches the end of the stream or closes the
+ * body. The reading thread and the timer hand over batches under the body's lock. Only the first bytes of each event
+ * up to the event size limit are kept in memory, the rest is counted and dropped as it arrives, even if the delimiter
+ * never comes.
+ */
+public class StreamingResponseBody extends ResponseBody {
+
+	/**
+	 * Server-Sent Events are separated with a blank line
+	 */
+	public static final ByteString EVENT_DELIMITER = ByteString.encodeUtf8("\n\n");
+	/**
+	 * Other streams, e.g. newline delimited JSON, are split into lines
+	 */
+	public static final ByteString LINE_DELIMITER = ByteString.encodeUtf8("\n");
+
+	private static final ByteString CRLF_EVENT_DELIMITER = ByteString.encodeUtf8("\n\r\n");
+
+	private final ResponseBody delegate;
+	private final ByteString delimiter;
+	private final int batchSize;
+	private final long batchInterval;
+	private final long maxEventSize;
+	private final Consumer<List<String>> onBatch;
+	private final Charset charset;
+	private final AtomicBoolean completed = new AtomicBoolean();
+	private final BufferedSource source;
+	private final long lookBehind;
+	private final ScheduledFuture<?> timer;
+	// Guarded by this
+	private final Buffer pending = new Buffer();
+	private final Buffer event = new Buffer();
+	private long omitted;
+	private List<String> events = new ArrayList<>();
+	private long lastBatch = System.nanoTime();
+
+	/**
+	 * @param delegate      original response body
+	 * @param delimiter     event delimiter
+	 * @param batchSize     maximum number of events in a batch
+	 * @param batchInterval maximum time in milliseconds to hold events before handing them over
+	 * @param maxEventSize  maximum number of bytes of an event to keep, the rest of the event is dropped
+	 * @param onBatch       batch callback
+	 */
+	public StreamingResponseBody(@Nonnull ResponseBody delegate, @Nonnull ByteString delimiter, int batchSize,
+			long batchInterval, long maxEventSize, @Nonnull Consumer<List<String>> onBatch) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+		}
+		this.delegate = delegate;
+		this.delimiter = delimiter;
+		this.batchSize = batchSize;
+		this.batchInterval = TimeUnit.MILLISECONDS.toNanos(batchInterval);
+		this.maxEventSize = maxEventSize;
+		this.onBatch = onBatch;
+		// Bytes at the end of the data which may be the beginning of a delimiter split between reads
+		this.lookBehind = (EVENT_DELIMITER.equals(delimiter) ? CRLF_EVENT_DELIMITER.size() : delimiter.size()) - 1;
+		MediaType contentType = delegate.contentType();
+		Charset contentCharset = contentType == null ? null : contentType.charset();
+		this.charset = contentCharset == null ? StandardCharsets.UTF_8 : contentCharset;
+		this.source = Okio.buffer(new EventSource(delegate.source()));
+		// With no interval every event is handed over on arrival, so there is nothing to wait for
+		this.timer = batchInterval > 0 ? BatchScheduler.schedule(this, StreamingResponseBody::flushIfDue, batchInterval) : null;
+	}
+
+	@Nullable
+	@Override
+	public MediaType contentType() {
+		return delegate.contentType();
+	}
+
+	@Override
+	public long contentLength() {
+		return delegate.contentLength();
+	}
+
+	@Nonnull
+	@Override
+	public BufferedSource source() {
+		return source;
+	}
+
+	/**
+	 * @return number of bytes held to build the current event
+	 */
+	long getBufferedSize() {
+		return pending.size() + event.size();
+	}
+
+	private void take(long count) throws IOException {
+		long keep = Math.min(count, maxEventSize - event.size());
+		event.write(pending, keep);
+		pending.skip(count - keep);
+		omitted += count - keep;
+	}
+
+	private void addEvent() {
+		String text = event.readString(charset).replace("\r", "");
+		long dropped = omitted;
+		omitted = 0;
+		if (!text.trim().isEmpty()) {
+			events.add(dropped > 0 ? text + "\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, dropped) : text);
+		}
+	}
+
+	private void split() throws IOException {
+		while (true) {
+			long index = pending.indexOf(delimiter);
+			long size = delimiter.size();
+			if (EVENT_DELIMITER.equals(delimiter)) {
+				long crlfIndex = pending.indexOf(CRLF_EVENT_DELIMITER);
+				if (crlfIndex >= 0 && (index < 0 || crlfIndex < index)) {
+					index = crlfIndex;
+					size = CRLF_EVENT_DELIMITER.size();
+				}
+			}
+			if (index < 0) {
+				take(Math.max(pending.size() - lookBehind, 0));
+				return;
+			}
+			take(index);
+			pending.skip(size);
+			addEvent();
+			if (events.size() >= batchSize) {
+				flush();
+			}
+		}
+	}
+
+	private void flush() {
+		if (events.isEmpty()) {
+			return;
+		}
+		List<String> batch = events;
+		events = new ArrayList<>();
+		lastBatch = System.nanoTime();
+		onBatch.accept(batch);
+	}
+
+	private synchronized void flushIfDue() {
+		if (!completed.get() && System.nanoTime() - lastBatch >= batchInterval) {
+			flush();
+		}
+	}
+
+	private synchronized void complete() throws IOException {
+		if (completed.compareAndSet(false, true)) {
+			if (timer != null) {
+				timer.cancel(false);
+			}
+			take(pending.size());
+			addEvent();
+			flush();
+		}
+	}
+
+	private class EventSource extends ForwardingSource {
+		EventSource(@Nonnull Source delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public long read(@Nonnull Buffer sink, long byteCount) throws IOException {
+			long read = super.read(sink, byteCount);
+			if (read < 0) {
+				complete();
+				return read;
+			}
+			synchronized (StreamingResponseBody.this) {
+				if (completed.get()) {
+					return read;
+				}
+				sink.copyTo(pending, sink.size() - read, read);
+				split();
+				if (System.nanoTime() - lastBatch >= batchInterval) {
+					flush();
+				}
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				complete();
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.*;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Request body wrapper which copies bytes into a {@link BodyCapture} while OkHttp writes the original body to the
+ * wire, so the body is serialized only once. Only the first write is captured, repeated writes on retries and
+ * redirects are passed through as is. The capture is handed to the completion callback, exactly once, as soon as the
+ * first write finishes or {@link #complete()} is called.
+ */
+public class TeeRequestBody extends RequestBody {
+
+	private final RequestBody delegate;
+	private final BodyCapture capture;
+	private final Consumer<BodyCapture> onComplete;
+	private final AtomicBoolean completed = new AtomicBoolean();
+
+	public TeeRequestBody(@Nonnull RequestBody delegate, @Nonnull BodyCapture capture,
+			@Nonnull Consumer<BodyCapture> onComplete) {
+		this.delegate = delegate;
+		this.capture = capture;
+		this.onComplete = onComplete;
+	}
+
+	/**
+	 * Rebuild the multipart body with the same boundary and parts, but wrap each part's body into a
+	 * {@link TeeRequestBody} which captures the part while OkHttp writes it to the wire. The resulting body is
+	 * serialized exactly as the original one.
+	 *
+	 * @param body         multipart body to wrap
+	 * @param partCaptures captures for each part, in the order of parts
+	 * @return multipart body with tee parts
+	 */
+	@Nonnull
+	public static MultipartBody multipart(@Nonnull MultipartBody body, @Nonnull List<BodyCapture> partCaptures) {
+		MultipartBody.Builder builder = new MultipartBody.Builder(body.boundary()).setType(body.type());
+		List<MultipartBody.Part> parts = body.parts();
+		for (int i = 0; i < parts.size(); i++) {
+			MultipartBody.Part part = parts.get(i);
+			builder.addPart(part.headers(), new TeeRequestBody(part.body(), partCaptures.get(i), c -> {
+			}));
+		}
+		return builder.build();
+	}
+
+	@Nullable
+	@Override
+	public MediaType contentType() {
+		return delegate.contentType();
+	}
+
+	@Override
+	public long contentLength() throws IOException {
+		return delegate.contentLength();
+	}
+
+	@Override
+	public boolean isOneShot() {
+		return delegate.isOneShot();
+	}
+
+	@Override
+	public boolean isDuplex() {
+		return delegate.isDuplex();
+	}
+
+	@Override
+	public void writeTo(@Nonnull BufferedSink sink) throws IOException {
+		if (completed.get()) {
+			delegate.writeTo(sink);
+			return;
+		}
+		try {
+			BufferedSink teeSink = Okio.buffer(new TeeSink(sink));
+			delegate.writeTo(teeSink);
+			teeSink.emit();
+		} finally {
+			complete();
+		}
+	}
+
+	@Nonnull
+	public BodyCapture getCapture() {
+		return capture;
+	}
+
+	/**
+	 * Hand the capture to the completion callback if it was not done yet, e.g. if the body was never written due to a
+	 * connection failure.
+	 */
+	public void complete() {
+		if (completed.compareAndSet(false, true)) {
+			onComplete.accept(capture);
+		}
+	}
+
+	private class TeeSink extends ForwardingSink {
+		TeeSink(@Nonnull Sink delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public void write(@Nonnull Buffer source, long byteCount) throws IOException {
+			capture.write(source, 0, byteCount);
+			super.write(source, byteCount);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Response body wrapper which passes the original stream to the caller and copies every byte read into a
+ * {@link BodyCapture}. Once the caller reaches the end of the stream or closes the body the capture is handed to the
+ * completion callback, exactly once. If the body is closed before its end, the capture is marked as not fully read.
+ */
+public class TeeResponseBody extends ResponseBody {
+
+	private final ResponseBody delegate;
+	private final BodyCapture capture;
+	private final Consumer<BodyCapture> onComplete;
+	private final AtomicBoolean completed = new AtomicBoolean();
+	private volatile boolean exhausted;
+	private final BufferedSource source;
+
+	public TeeResponseBody(@Nonnull ResponseBody delegate, @Nonnull BodyCapture capture,
+			@Nonnull Consumer<BodyCapture> onComplete) {
+		this.delegate = delegate;
+		this.capture = capture;
+		this.onComplete = onComplete;
+		this.source = Okio.buffer(new TeeSource(delegate.source()));
+	}
+
+	@Nullable
+	@Override
+	public MediaType contentType() {
+		return delegate.contentType();
+	}
+
+	@Override
+	public long contentLength() {
+		return delegate.contentLength();
+	}
+
+	@Nonnull
+	@Override
+	public BufferedSource source() {
+		return source;
+	}
+
+	private void complete() {
+		if (completed.compareAndSet(false, true)) {
+			onComplete.accept(capture);
+		}
+	}
+
+	private class TeeSource extends ForwardingSource {
+		TeeSource(@Nonnull BufferedSource delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public long read(@Nonnull Buffer sink, long byteCount) throws IOException {
+			long read = super.read(sink, byteCount);
+			if (read < 0) {
+				exhausted = true;
+				complete();
+				return read;
+			}
+			capture.write(sink, sink.size() - read, read);
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				long length = delegate.contentLength();
+				if (!exhausted && !completed.get() && (length < 0 || capture.getEncodedTotal() < length)) {
+					// The caller gave up on the body, so the capture is only a part of it
+					capture.setNotFullyRead(length);
+				}
+				complete();
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Options;
+
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes text bodies chunk by chunk with a {@link CharsetDecoder}. Decoded bytes are consumed from the source as the
+ * text grows, so the full byte copy and the full char copy of a body are never held at once. Chars are decoded into
+ * chunks which are filled up before the next one is allocated, and the result string is built once from them. The
+ * peak memory is still about twice the decoded text: the decoded chars and the string made of them.
+ */
+public class TextBodyDecoder {
+
+	private static final int CHUNK_SIZE = 8192;
+	private static final Options BYTE_ORDER_MARKS = Options.of(
+			ByteString.decodeHex("efbbbf"),
+			ByteString.decodeHex("feff"),
+			ByteString.decodeHex("fffe")
+	);
+	private static final Charset[] BYTE_ORDER_MARK_CHARSETS = new Charset[] { StandardCharsets.UTF_8,
+			StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE };
+
+	@Nonnull
+	private static CharBuffer nextChunk(@Nonnull List<char[]> chunks, @Nonnull CharBuffer out) {
+		// A chunk may be left partly filled if the next char doesn't fit, e.g. a surrogate pair
+		chunks.add(out.hasRemaining() ? Arrays.copyOf(out.array(), out.position()) : out.array());
+		return CharBuffer.allocate(CHUNK_SIZE);
+	}
+
+	@Nonnull
+	private static String toString(@Nonnull List<char[]> chunks, @Nonnull CharBuffer last) {
+		if (chunks.isEmpty()) {
+			return new String(last.array(), 0, last.position());
+		}
+		long length = last.position();
+		for (char[] chunk : chunks) {
+			length += chunk.length;
+		}
+		char[] result = new char[Math.toIntExact(length)];
+		int position = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			char[] chunk = chunks.get(i);
+			System.arraycopy(chunk, 0, result, position, chunk.length);
+			position += chunk.length;
+			// Let the chunk go as soon as it's copied
+			chunks.set(i, null);
+		}
+		System.arraycopy(last.array(), 0, result, position, last.position());
+		return new String(result, 0, result.length);
+	}
+
+	/**
+	 * Decode text from the source. A byte order mark, if any, overrides the given charset, like
+	 * {@link okhttp3.ResponseBody#string()} does. Malformed input is replaced with the charset's replacement string.
+	 *
+	 * @param source    source to read from, bytes are consumed while decoding
+	 * @param charset   text charset
+	 * @param byteCount number of bytes in the source, or <code>-1</code> if unknown, used to size the first chunk
+	 * @return decoded text
+	 * @throws IOException if the source cannot be read
+	 */
+	@Nonnull
+	public static String decode(@Nonnull BufferedSource source, @Nonnull Charset charset, long byteCount)
+			throws IOException {
+		int bom = source.select(BYTE_ORDER_MARKS);
+		CharsetDecoder decoder = (bom < 0 ? charset : BYTE_ORDER_MARK_CHARSETS[bom]).newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// Only the first chunk is sized from the body length, so short texts don't take a whole chunk
+		int firstChunkSize = byteCount < 0 ?
+				CHUNK_SIZE :
+				(int) Math.max(1, Math.min(CHUNK_SIZE, Math.ceil(byteCount * (double) decoder.maxCharsPerByte())));
+		List<char[]> chunks = new ArrayList<>();
+		ByteBuffer in = ByteBuffer.allocate(CHUNK_SIZE);
+		CharBuffer out = CharBuffer.allocate(firstChunkSize);
+		boolean endOfInput = false;
+		while (true) {
+			if (!endOfInput && in.hasRemaining()) {
+				int read = source.read(in.array(), in.position(), in.remaining());
+				if (read < 0) {
+					endOfInput = true;
+				} else {
+					in.position(in.position() + read);
+				}
+			}
+			in.flip();
+			CoderResult decoded = decoder.decode(in, out, endOfInput);
+			in.compact();
+			if (decoded.isOverflow() || !out.hasRemaining()) {
+				out = nextChunk(chunks, out);
+			}
+			if (endOfInput && decoded.isUnderflow()) {
+				while (decoder.flush(out).isOverflow()) {
+					out = nextChunk(chunks, out);
+				}
+				return toString(chunks, out);
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.formatting.http.Constants;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Utf8;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Wire-level statistics of a single network hop of an HTTP call, i.e. one request actually sent over a connection.
+ * A call has several hops if OkHttp retries it or follows redirects. Body sizes are taken from the counting tee
+ * bodies, so they are the numbers of bytes written to and read from the wire, before any content decoding. Header
+ * sizes are sizes of the HTTP/1.1 head: the request or status line, <code>name: value</code> lines and the final
+ * empty line. HTTP/2 compresses headers with HPACK, so for HTTP/2 hops header sizes are marked as uncompressed.
+ * Request and response are completed by different threads, so all fields are volatile.
+ */
+public class WireStats {
+
+	public static final String WIRE_TAG = "**Wire**";
+
+	private static final long NOT_SET = -1;
+	private static final String HTTP_1_1 = "HTTP/1.1";
+	// Line delimiter of the HTTP head, which is not the one of log entries
+	private static final int CRLF_SIZE = 2;
+
+	private final int hop;
+	private final long requestHeaderBytes;
+	private volatile long requestBodyBytes = NOT_SET;
+	private volatile long responseHeaderBytes = NOT_SET;
+	private volatile long responseBodyBytes = NOT_SET;
+	private volatile long latency = NOT_SET;
+	private volatile Protocol protocol;
+
+	/**
+	 * @param hop     number of the hop within its call, starting from 1
+	 * @param request request of the hop, as written to the wire
+	 */
+	public WireStats(int hop, @Nonnull Request request) {
+		this.hop = hop;
+		requestHeaderBytes = requestLineSize(request) + headersSize(request.headers());
+	}
+
+	private static long requestLineSize(@Nonnull Request request) {
+		HttpUrl url = request.url();
+		String query = url.encodedQuery();
+		// method SP path[?query] SP version CRLF
+		return Utf8.size(request.method()) + 1 + Utf8.size(url.encodedPath()) + (query == null ? 0 : 1 + Utf8.size(query))
+				+ 1 + HTTP_1_1.length() + CRLF_SIZE;
+	}
+
+	private static long statusLineSize(@Nonnull Response response) {
+		// version SP code SP message CRLF
+		return HTTP_1_1.length() + 1 + String.valueOf(response.code()).length() + 1 + Utf8.size(response.message())
+				+ CRLF_SIZE;
+	}
+
+	private static long headersSize(@Nonnull Headers headers) {
+		long size = CRLF_SIZE;
+		for (int i = 0, count = headers.size(); i < count; i++) {
+			// name: value CRLF
+			size += Utf8.size(headers.name(i)) + 2 + Utf8.size(headers.value(i)) + CRLF_SIZE;
+		}
+		return size;
+	}
+
+	/**
+	 * @param requestBodyBytes number of request body bytes written to the wire
+	 */
+	public void setRequestBodyBytes(long requestBodyBytes) {
+		this.requestBodyBytes = requestBodyBytes;
+	}
+
+	/**
+	 * Record response headers, protocol and the time from sending the request to receiving the response headers.
+	 *
+	 * @param response response of the hop
+	 */
+	public void setResponse(@Nonnull Response response) {
+		responseHeaderBytes = statusLineSize(response) + headersSize(response.headers());
+		protocol = response.protocol();
+		long sent = response.sentRequestAtMillis();
+		long received = response.receivedResponseAtMillis();
+		if (sent > 0 && received >= sent) {
+			latency = received - sent;
+		}
+	}
+
+	/**
+	 * @param responseBodyBytes number of response body bytes read from the wire
+	 */
+	public void setResponseBodyBytes(long responseBodyBytes) {
+		this.responseBodyBytes = responseBodyBytes;
+	}
+
+	public int getHop() {
+		return hop;
+	}
+
+	/**
+	 * @return size of the request head, as serialized by HTTP/1.1
+	 */
+	public long getRequestHeaderBytes() {
+		return requestHeaderBytes;
+	}
+
+	/**
+	 * @return number of request body bytes written to the wire or <code>-1</code> if unknown
+	 */
+	public long getRequestBodyBytes() {
+		return requestBodyBytes;
+	}
+
+	/**
+	 * @return size of the response head, as serialized by HTTP/1.1, or <code>-1</code> if no response was received yet
+	 */
+	public long getResponseHeaderBytes() {
+		return responseHeaderBytes;
+	}
+
+	/**
+	 * @return number of response body bytes read from the wire or <code>-1</code> if the body was not read yet
+	 */
+	public long getResponseBodyBytes() {
+		return responseBodyBytes;
+	}
+
+	/**
+	 * @return time from sending the request to receiving the response headers, in milliseconds, or <code>-1</code> if
+	 * no response was received yet
+	 */
+	public long getLatency() {
+		return latency;
+	}
+
+	@Nullable
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	private static boolean isHpack(@Nullable Protocol protocol) {
+		return protocol == Protocol.HTTP_2 || protocol == Protocol.H2_PRIOR_KNOWLEDGE || protocol == Protocol.QUIC;
+	}
+
+	private static void appendBytes(@Nonnull StringBuilder builder, @Nonnull String name, long headers, long body,
+			boolean uncompressed) {
+		if (headers == NOT_SET) {
+			return;
+		}
+		builder.append(Constants.LINE_DELIMITER).append(name).append(": ").append(headers).append(" bytes headers");
+		if (uncompressed) {
+			builder.append(" (uncompressed)");
+		}
+		if (body != NOT_SET) {
+			builder.append(", ").append(body).append(" bytes body");
+		}
+	}
+
+	/**
+	 * Format the statistics to attach to a log entry, values which are not known yet are skipped.
+	 *
+	 * @return formatted statistics
+	 */
+	@Nonnull
+	public String format() {
+		StringBuilder builder = new StringBuilder(WIRE_TAG);
+		builder.append(Constants.LINE_DELIMITER).append("Hop: ").append(hop);
+		Protocol p = protocol;
+		if (p != null) {
+			builder.append(Constants.LINE_DELIMITER).append("Protocol: ").append(p);
+		}
+		appendBytes(builder, "Request", requestHeaderBytes, requestBodyBytes, isHpack(p));
+		appendBytes(builder, "Response", responseHeaderBytes, responseBodyBytes, isHpack(p));
+		long l = latency;
+		if (l != NOT_SET) {
+			builder.append(Constants.LINE_DELIMITER).append("Latency: ").append(l).append(" ms");
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return format();
+	}
+}
@@ -17,19 +17,39 @@
 package com.epam.reportportal.okhttp3;
 
 import com.epam.reportportal.formatting.http.Constants;
+import com.epam.reportportal.formatting.http.HttpFormatter;
+import com.epam.reportportal.formatting.http.entities.BodyType;
 import com.epam.reportportal.formatting.http.prettifiers.JsonPrettifier;
 import com.epam.reportportal.formatting.http.prettifiers.XmlPrettifier;
 import com.epam.reportportal.listeners.ItemStatus;
 import com.epam.reportportal.listeners.LogLevel;
 import com.epam.reportportal.message.ReportPortalMessage;
+import com.epam.reportportal.okhttp3.support.AsyncLogEmitter;
+import com.epam.reportportal.okhttp3.support.AttachmentDeduplicator;
+import com.epam.reportportal.okhttp3.support.BodyCapture;
+import com.epam.reportportal.okhttp3.support.CallTimings;
+import com.epam.reportportal.okhttp3.support.HttpEntityFactory;
+import com.epam.reportportal.okhttp3.support.InMemoryInterceptorMetrics;
+import com.epam.reportportal.okhttp3.support.InterceptorMetrics;
+import com.epam.reportportal.okhttp3.support.PartPolicy;
+import com.epam.reportportal.okhttp3.support.RequestFilter;
+import com.epam.reportportal.okhttp3.support.ResponseFilters;
+import com.epam.reportportal.okhttp3.support.SamplingPolicy;
+import com.epam.reportportal.okhttp3.support.WireStats;
 import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.LoggingContext;
 import com.epam.reportportal.service.ReportPortal;
 import com.epam.reportportal.service.step.StepReporter;
 import com.epam.reportportal.util.test.CommonUtils;
 import com.epam.reportportal.utils.files.Utils;
 import com.epam.reportportal.utils.http.ContentType;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
 import okhttp3.*;
+import okio.Buffer;
 import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
 import org.apache.commons.lang3.tuple.Triple;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,17 +63,32 @@ import org.mockito.Mockito;
 
 import jakarta.annotation.Nonnull;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Optional.ofNullable;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -72,6 +107,10 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 	private static final String HTTP_HEADER_VALUE = JSON_TYPE;
 
 	private static Interceptor.Chain getChain(Request request, Response response) {
+		return getChain(request, response, mock(Call.class));
+	}
+
+	private static Interceptor.Chain getChain(Request request, Response response, Call call) {
 		return new Interceptor.Chain() {
 			private int writeTimeout = 1000;
 			private int readTimeout = 1000;
@@ -119,7 +158,13 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 
 			@NotNull
 			@Override
-			public Response proceed(@NotNull Request request) {
+			public Response proceed(@NotNull Request request) throws IOException {
+				RequestBody body = request.body();
+				if (body != null) {
+					try (Buffer wire = new Buffer()) {
+						body.writeTo(wire);
+					}
+				}
 				return response;
 			}
 
@@ -137,7 +182,7 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 			@NotNull
 			@Override
 			public Call call() {
-				return mock(Call.class);
+				return call;
 			}
 		};
 	}
@@ -155,7 +200,10 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 			throws IOException {
 		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
 			mocks.accept(utilities);
-			interceptor.intercept(getChain(request, response));
+			ResponseBody body = interceptor.intercept(getChain(request, response)).body();
+			if (body != null) {
+				body.bytes();
+			}
 		}
 	}
 
@@ -226,6 +274,9 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 			when(body.contentType()).thenReturn(MediaType.parse(contentType));
 		}
 		when(request.body()).thenReturn(body);
+		when(request.newBuilder()).thenAnswer(i -> new Request.Builder().url(URI)
+				.headers(request.headers())
+				.method(METHOD, request.body()));
 		return request;
 	}
 
@@ -386,8 +437,7 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 		when(request.body()).thenReturn(requestBody);
 		when(requestBody.contentType()).thenReturn(MediaType.parse(mimeType));
 
-		ResponseBody responseBody = mock(ResponseBody.class);
-		when(responseBody.bytes()).thenReturn(new byte[0]);
+		ResponseBody responseBody = ResponseBody.create(new byte[0], MediaType.parse(mimeType));
 		Response response = createBasicResponse(mimeType, new Headers.Builder().build(), responseBody);
 
 		List<Object> logs = new ArrayList<>();
@@ -557,6 +607,29 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 		assertThat(logs.getRight().get(0).getData().read(), equalTo(image));
 	}
 
+	@Test
+	public void test_multipart_binary_part_summary() throws IOException {
+		byte[] image = getResource(IMAGE);
+		String message = "test_message";
+		Request requestSpecification = mockBasicRequest(ContentType.MULTIPART_FORM_DATA);
+		MultipartBody requestBody = getBinaryTextBody(ContentType.TEXT_PLAIN, message, ContentType.IMAGE_JPEG, IMAGE);
+		when(requestSpecification.body()).thenReturn(requestBody);
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				requestSpecification,
+				createBasicResponse(null),
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setPartPolicy(PartPolicy.summarizeBinary())
+		);
+		assertThat(logs.getLeft(), hasSize(1));
+		assertThat(logs.getMiddle(), hasSize(3));
+		assertThat(logs.getRight(), hasSize(0));
+
+		String summary = String.format(HttpEntityFactory.PART_SUMMARY, image.length, ByteString.of(image).sha256().hex());
+		assertThat(logs.getMiddle().get(0), containsString(summary));
+		assertThat(logs.getMiddle().get(1), equalTo(Constants.BODY_PART_TAG + "\n```\n" + message + "\n```"));
+		assertThat(logs.getMiddle().get(2), equalTo(EMPTY_RESPONSE));
+		verify(requestBody.part(1).body(), times(1)).writeTo(any());
+	}
+
 	public static Iterable<Object[]> invalidContentTypes() {
 		return Arrays.asList(
 				new Object[] { "", ContentType.APPLICATION_OCTET_STREAM, ContentType.APPLICATION_OCTET_STREAM },
@@ -608,4 +681,965 @@ public class ReportPortalOkHttp3LoggingInterceptorTest {
 		);
 		assertThat(logs.getRight(), hasSize(0));
 	}
+
+	@Test
+	public void test_body_type_map_change_applies_to_next_calls() throws IOException {
+		String body = "test_body";
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO);
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				response,
+				interceptor
+		);
+		assertThat(logs.getMiddle(), hasSize(2));
+		assertThat(logs.getRight(), hasSize(0));
+
+		Map<String, BodyType> bodyTypeMap = new HashMap<>(interceptor.getBodyTypeMap());
+		bodyTypeMap.put(ContentType.TEXT_PLAIN, BodyType.BINARY);
+		interceptor.setBodyTypeMap(bodyTypeMap);
+		response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		logs = runChainComplexMessageCapture(request, response, interceptor);
+		assertThat(logs.getMiddle(), hasSize(1));
+		assertThat(logs.getRight(), hasSize(1));
+		assertThat(logs.getRight().get(0).getData().read(), equalTo(body.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void test_response_log_emitted_on_body_consumption() throws IOException {
+		String body = "{\"object\": {\"key\": \"value\"}}";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				JSON_TYPE,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(JSON_TYPE))
+		);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			Response result = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).intercept(getChain(request, response));
+			assertThat(logCapture.getAllValues(), hasSize(1)); // Request only, response body is not read yet
+
+			ResponseBody resultBody = Objects.requireNonNull(result.body());
+			assertThat(resultBody.string(), equalTo(body));
+			resultBody.close();
+		}
+		assertThat(logCapture.getAllValues(), hasSize(2));
+		assertThat(
+				logCapture.getAllValues().get(1),
+				equalTo(EMPTY_RESPONSE + "\n\n**Body**\n```\n" + JsonPrettifier.INSTANCE.apply(body) + "\n```")
+		);
+	}
+
+	@Test
+	public void test_partially_read_response_marked() throws IOException {
+		String body = new String(new char[20000]).replace("\0", "a");
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		InMemoryInterceptorMetrics metrics = new InMemoryInterceptorMetrics();
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			ResponseBody result = Objects.requireNonNull(new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setMetrics(metrics)
+					.intercept(getChain(request, response))
+					.body());
+			assertThat(result.source().readUtf8(3), equalTo("aaa"));
+			result.close();
+		}
+		assertThat(logCapture.getAllValues(), hasSize(2));
+		assertThat(
+				logCapture.getAllValues().get(1),
+				containsString("\n" + String.format(HttpEntityFactory.NOT_FULLY_READ_MARKER, 8192, body.length()) + "\n```")
+		);
+		assertThat(metrics.getTruncations(), equalTo(1L));
+	}
+
+	@Test
+	public void test_dropped_entries_counted() throws IOException, InterruptedException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		InMemoryInterceptorMetrics metrics = new InMemoryInterceptorMetrics();
+		AsyncLogEmitter emitter = new AsyncLogEmitter(1, 1, AsyncLogEmitter.OverflowPolicy.DROP);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		emitter.submit(() -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+		try (MockedStatic<LoggingContext> utilities = Mockito.mockStatic(LoggingContext.class)) {
+			utilities.when(LoggingContext::context).thenReturn(mock(LoggingContext.class));
+			new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setAsyncEmitter(emitter)
+					.setMetrics(metrics)
+					.intercept(getChain(request, createBasicResponse(null)));
+		} finally {
+			release.countDown();
+			emitter.close();
+		}
+
+		// The request entry takes the only place in the queue, the response entry is dropped
+		assertThat(metrics.getDropped(), equalTo(1L));
+		assertThat(emitter.getDropped(), equalTo(1L));
+	}
+
+	@Test
+	public void test_call_timings_attached_to_response() throws IOException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(null);
+		ReportPortalOkHttp3EventListenerFactory timings = new ReportPortalOkHttp3EventListenerFactory();
+		Call call = mock(Call.class);
+		okhttp3.EventListener listener = timings.create(call);
+		listener.callStart(call);
+		listener.requestHeadersStart(call);
+		listener.responseHeadersStart(call);
+
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setEventListenerFactory(timings)
+					.intercept(getChain(request, response, call));
+		}
+		listener.callEnd(call);
+
+		assertThat(logCapture.getAllValues(), hasSize(2));
+		assertThat(logCapture.getAllValues().get(0), equalTo(EMPTY_REQUEST));
+		String responseLog = logCapture.getAllValues().get(1);
+		assertThat(responseLog, startsWith(EMPTY_RESPONSE + "\n\n" + CallTimings.TIMINGS_TAG));
+		assertThat(responseLog, containsString("\nTTFB: "));
+		assertThat(responseLog, containsString("\nTotal: "));
+		assertThat(responseLog, not(containsString("\nDNS: ")));
+		assertThat(timings.size(), equalTo(0));
+	}
+
+	@Test
+	public void test_connection_details_attached_to_response() throws IOException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(null);
+		ReportPortalOkHttp3EventListenerFactory timings = new ReportPortalOkHttp3EventListenerFactory();
+		Call call = mock(Call.class);
+		Route route = mock(Route.class);
+		when(route.socketAddress()).thenReturn(new InetSocketAddress(InetAddress.getLoopbackAddress(), 8443));
+		Connection connection = mock(Connection.class);
+		when(connection.protocol()).thenReturn(Protocol.HTTP_2);
+		when(connection.route()).thenReturn(route);
+		when(connection.handshake()).thenReturn(Handshake.get(
+				TlsVersion.TLS_1_3,
+				CipherSuite.TLS_AES_128_GCM_SHA256,
+				Collections.emptyList(),
+				Collections.emptyList()
+		));
+		okhttp3.EventListener listener = timings.create(call);
+		listener.callStart(call);
+		listener.connectionAcquired(call, connection);
+		listener.requestHeadersStart(call);
+		listener.responseHeadersStart(call);
+
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setEventListenerFactory(timings)
+					.intercept(getChain(request, response, call));
+		}
+		listener.callEnd(call);
+
+		assertThat(logCapture.getAllValues(), hasSize(2));
+		assertThat(
+				logCapture.getAllValues().get(1),
+				startsWith(EMPTY_RESPONSE + "\n\n" + CallTimings.TIMINGS_TAG + "\nProtocol: h2\nRemote address: "
+						+ InetAddress.getLoopbackAddress().getHostAddress()
+						+ ":8443\nTLS version: TLSv1.3\nCipher suite: TLS_AES_128_GCM_SHA256\nConnection: reused\n")
+		);
+	}
+
+	@Test
+	public void test_not_executed_call_not_held() {
+		ReportPortalOkHttp3EventListenerFactory calls = new ReportPortalOkHttp3EventListenerFactory();
+		OkHttpClient client = new OkHttpClient.Builder().eventListenerFactory(calls).build();
+		Call call = client.newCall(new Request.Builder().url(URI).build());
+		call.clone();
+
+		assertThat(calls.size(), equalTo(0));
+		assertThat(calls.getTimings(call), nullValue());
+	}
+
+	@Test
+	public void test_network_interceptor_wire_stats() throws IOException {
+		String body = "plain text body";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Call call = mock(Call.class);
+		ReportPortalOkHttp3NetworkInterceptor interceptor = new ReportPortalOkHttp3NetworkInterceptor(LogLevel.INFO);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			for (int i = 0; i < 2; i++) {
+				Response response = createBasicResponse(
+						"text/plain",
+						new Headers.Builder().build(),
+						ResponseBody.create(body, MediaType.parse("text/plain"))
+				);
+				assertThat(Objects.requireNonNull(interceptor.intercept(getChain(request, response, call)).body()).string(), equalTo(body));
+			}
+		}
+
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(4));
+		assertThat(interceptor.size(), equalTo(1));
+		for (int i = 0; i < 2; i++) {
+			assertThat(logs.get(i * 2), equalTo(EMPTY_REQUEST));
+			assertThat(
+					logs.get(i * 2 + 1),
+					equalTo(EMPTY_RESPONSE + "\n\n**Body**\n```\n" + body + "\n```\n\n" + WireStats.WIRE_TAG + "\nHop: " + (i + 1)
+							+ "\nProtocol: http/1.1\nRequest: 22 bytes headers, 0 bytes body\nResponse: 17 bytes headers, " + body.length()
+							+ " bytes body")
+			);
+		}
+	}
+
+	@Test
+	public void test_event_stream_logged_in_batches() throws IOException {
+		String events = "id: 1\ndata: first\n\nid: 2\ndata: second\r\n\r\nid: 3\ndata: third\n\n";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ReportPortalOkHttp3LoggingInterceptor.EVENT_STREAM_TYPE,
+				new Headers.Builder().build(),
+				ResponseBody.create(events, MediaType.parse(ReportPortalOkHttp3LoggingInterceptor.EVENT_STREAM_TYPE))
+		);
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setStreamBatch(
+				2,
+				TimeUnit.MINUTES.toMillis(1)
+		);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			ResponseBody body = Objects.requireNonNull(interceptor.intercept(getChain(request, response)).body());
+			assertThat(logCapture.getAllValues(), hasSize(2)); // Request and response head
+
+			assertThat(body.source().request(1), equalTo(Boolean.TRUE));
+			assertThat(logCapture.getAllValues(), hasSize(3)); // The first batch is logged while the stream is open
+
+			assertThat(body.string(), equalTo(events));
+		}
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(4));
+		assertThat(logs.get(0), equalTo(EMPTY_REQUEST));
+		assertThat(logs.get(1), equalTo(EMPTY_RESPONSE));
+		assertThat(
+				logs.get(2),
+				equalTo(String.format(ReportPortalOkHttp3LoggingInterceptor.EVENTS_TAG, 1, 2)
+						+ "\n```\nid: 1\ndata: first\n\nid: 2\ndata: second\n```")
+		);
+		assertThat(
+				logs.get(3),
+				equalTo(String.format(ReportPortalOkHttp3LoggingInterceptor.EVENTS_TAG, 3, 3) + "\n```\nid: 3\ndata: third\n```")
+		);
+	}
+
+	/**
+	 * Accept a single connection and complete a WebSocket upgrade, then hold the connection until the client closes it.
+	 */
+	private static void acceptWebSocket(@Nonnull ServerSocket server) {
+		try (Socket socket = server.accept()) {
+			socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+			BufferedSource source = Okio.buffer(Okio.source(socket));
+			String key = null;
+			for (String line = source.readUtf8LineStrict(); !line.isEmpty(); line = source.readUtf8LineStrict()) {
+				if (line.toLowerCase(Locale.ROOT).startsWith("sec-websocket-key:")) {
+					key = line.substring(line.indexOf(':') + 1).trim();
+				}
+			}
+			String accept = ByteString.encodeUtf8(key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").sha1().base64();
+			BufferedSink sink = Okio.buffer(Okio.sink(socket));
+			sink.writeUtf8("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+					+ "Sec-WebSocket-Accept: " + accept + "\r\n\r\n");
+			sink.flush();
+			while (!source.exhausted()) {
+				source.skip(source.getBuffer().size());
+			}
+		} catch (IOException ignore) {
+			// the client is gone
+		}
+	}
+
+	@Test
+	public void test_web_socket_upgrade_response_logged() throws IOException, InterruptedException {
+		Queue<String> logs = new ConcurrentLinkedQueue<>();
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO) {
+			@Override
+			protected void emitLog(@Nonnull HttpFormatter formatter, @Nullable BodyCapture capture, @Nullable String footer) {
+				logs.add(formatter.formatAsText());
+				if (capture != null) {
+					capture.close();
+				}
+			}
+		};
+		OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			Thread serverThread = new Thread(() -> acceptWebSocket(server));
+			serverThread.start();
+			CountDownLatch opened = new CountDownLatch(1);
+			WebSocket webSocket = client.newWebSocket(
+					new Request.Builder().url("ws://127.0.0.1:" + server.getLocalPort() + "/socket").build(),
+					new WebSocketListener() {
+						@Override
+						public void onOpen(@NotNull WebSocket webSocket, @NotNull Response response) {
+							opened.countDown();
+						}
+					}
+			);
+			assertThat(opened.await(10, TimeUnit.SECONDS), equalTo(Boolean.TRUE));
+			webSocket.cancel();
+			serverThread.join(TimeUnit.SECONDS.toMillis(10));
+		} finally {
+			client.dispatcher().executorService().shutdown();
+		}
+
+		List<String> entries = new ArrayList<>(logs);
+		assertThat(entries, hasSize(2));
+		assertThat(entries.get(0), startsWith("**>>> REQUEST**\nGET to http://127.0.0.1:"));
+		assertThat(entries.get(1), startsWith("**<<< RESPONSE**\n101"));
+	}
+
+	@Test
+	public void test_web_socket_frames_logged_in_batches() {
+		WebSocketListener delegate = mock(WebSocketListener.class);
+		WebSocket webSocket = mock(WebSocket.class);
+		Request request = mockBasicRequest(null);
+		when(webSocket.request()).thenReturn(request);
+		when(webSocket.send(anyString())).thenReturn(Boolean.TRUE);
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO);
+		ReportPortalOkHttp3WebSocketListener listener = new ReportPortalOkHttp3WebSocketListener(interceptor, delegate).setBatch(
+				2,
+				TimeUnit.MINUTES.toMillis(1)
+		).setMaxPayload(4);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			WebSocket wrapped = listener.wrap(webSocket);
+			assertThat(wrapped.send("ping"), equalTo(Boolean.TRUE));
+			listener.onMessage(webSocket, "pong!");
+			assertThat(logCapture.getAllValues(), hasSize(1));
+
+			listener.onMessage(webSocket, ByteString.decodeHex("0102030405"));
+			listener.onClosed(webSocket, 1000, "bye");
+		}
+		verify(webSocket).send("ping");
+		verify(delegate).onMessage(same(webSocket), eq("pong!"));
+		verify(delegate).onClosed(same(webSocket), eq(1000), eq("bye"));
+
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(3));
+		assertThat(
+				logs.get(0),
+				equalTo(String.format(ReportPortalOkHttp3WebSocketListener.FRAMES_TAG, 1, 2) + "\n```\n>>> ping\n<<< pong\n"
+						+ String.format(HttpEntityFactory.TRUNCATION_MARKER, 1) + "\n```")
+		);
+		assertThat(
+				logs.get(1),
+				equalTo(String.format(ReportPortalOkHttp3WebSocketListener.FRAMES_TAG, 3, 3) + "\n```\n<<< [5 bytes] 01020304...\n```")
+		);
+		assertThat(logs.get(2), equalTo("**WebSocket closed**\n1000 bye"));
+	}
+
+	@Test
+	public void test_web_socket_frames_sampling() {
+		WebSocket webSocket = mock(WebSocket.class);
+		Request request = mockBasicRequest(null);
+		when(webSocket.request()).thenReturn(request);
+		ReportPortalOkHttp3WebSocketListener listener = new ReportPortalOkHttp3WebSocketListener(
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO),
+				mock(WebSocketListener.class)
+		).setSamplingPolicy(SamplingPolicy.rateLimit(0.001, 1));
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			for (int i = 0; i < 5; i++) {
+				listener.onMessage(webSocket, "frame " + i);
+			}
+			listener.onFailure(webSocket, new IOException("Connection reset"), null);
+		}
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(2));
+		assertThat(
+				logs.get(0),
+				equalTo(String.format(ReportPortalOkHttp3WebSocketListener.FRAMES_TAG, 1, 1) + "\n"
+						+ String.format(ReportPortalOkHttp3WebSocketListener.SKIPPED_FRAMES, 4) + "\n```\n<<< frame 0\n```")
+		);
+		assertThat(logs.get(1), equalTo("**WebSocket failed**\njava.io.IOException: Connection reset"));
+	}
+
+	@Test
+	public void test_web_socket_skipped_frames_reported_on_close() {
+		WebSocket webSocket = mock(WebSocket.class);
+		Request request = mockBasicRequest(null);
+		when(webSocket.request()).thenReturn(request);
+		ReportPortalOkHttp3WebSocketListener listener = new ReportPortalOkHttp3WebSocketListener(
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO),
+				mock(WebSocketListener.class)
+		).setBatch(1, TimeUnit.MINUTES.toMillis(1)).setSamplingPolicy(SamplingPolicy.rateLimit(0.001, 1));
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			for (int i = 0; i < 4; i++) {
+				listener.onMessage(webSocket, "frame " + i);
+			}
+			listener.onClosed(webSocket, 1000, "");
+		}
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(3));
+		assertThat(
+				logs.get(0),
+				equalTo(String.format(ReportPortalOkHttp3WebSocketListener.FRAMES_TAG, 1, 1) + "\n```\n<<< frame 0\n```")
+		);
+		assertThat(
+				logs.get(1),
+				equalTo(ReportPortalOkHttp3WebSocketListener.SKIPPED_TAG + "\n"
+						+ String.format(ReportPortalOkHttp3WebSocketListener.SKIPPED_FRAMES, 3))
+		);
+		assertThat(logs.get(2), equalTo("**WebSocket closed**\n1000"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_web_socket_batch_logged_without_new_frames() {
+		WebSocket webSocket = mock(WebSocket.class);
+		Request request = mockBasicRequest(null);
+		when(webSocket.request()).thenReturn(request);
+		LoggingContext context = mock(LoggingContext.class);
+		ReportPortalOkHttp3WebSocketListener listener;
+		try (MockedStatic<LoggingContext> utilities = Mockito.mockStatic(LoggingContext.class)) {
+			utilities.when(LoggingContext::context).thenReturn(context);
+			listener = new ReportPortalOkHttp3WebSocketListener(
+					new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO),
+					mock(WebSocketListener.class)
+			).setBatch(10, 100);
+		}
+		listener.onMessage(webSocket, "frame");
+
+		// No more frames arrive, the timer logs the batch
+		ArgumentCaptor<Function<String, SaveLogRQ>> logCapture = ArgumentCaptor.forClass(Function.class);
+		verify(context, timeout(TimeUnit.SECONDS.toMillis(10))).emit(logCapture.capture());
+		listener.onClosed(webSocket, 1000, "");
+
+		verify(context, times(2)).emit(logCapture.capture());
+		List<String> logs = logCapture.getAllValues().stream().map(f -> f.apply("item").getMessage()).collect(Collectors.toList());
+		assertThat(logs.get(0), equalTo(String.format(ReportPortalOkHttp3WebSocketListener.FRAMES_TAG, 1, 1) + "\n```\n<<< frame\n```"));
+		assertThat(logs.get(logs.size() - 1), equalTo("**WebSocket closed**\n1000"));
+	}
+
+	@Test
+	public void test_binary_request_capture_limit() throws IOException {
+		byte[] image = getResource(IMAGE);
+		int limit = 100;
+		Request request = mockBasicRequest(IMAGE_TYPE);
+		RequestBody requestBody = mock(RequestBody.class);
+		when(request.body()).thenReturn(requestBody);
+		when(requestBody.contentType()).thenReturn(MediaType.parse(IMAGE_TYPE));
+		doAnswer(i -> {
+			BufferedSink sink = i.getArgument(0);
+			sink.write(image);
+			return null;
+		}).when(requestBody).writeTo(any(BufferedSink.class));
+
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				createBasicResponse(null),
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setCaptureLimit(BodyType.BINARY, limit)
+		);
+		assertThat(logs.getRight(), hasSize(1));
+		assertThat(
+				logs.getRight().get(0).getMessage(),
+				equalTo(EMPTY_REQUEST + "\n\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, image.length - limit))
+		);
+		assertThat(logs.getRight().get(0).getData().read(), equalTo(Arrays.copyOf(image, limit)));
+	}
+
+	@Test
+	public void test_repeated_binary_body_attached_once() throws IOException {
+		byte[] image = getResource(IMAGE);
+		Request request = mockBasicRequest(IMAGE_TYPE);
+		RequestBody requestBody = mock(RequestBody.class);
+		when(request.body()).thenReturn(requestBody);
+		when(requestBody.contentType()).thenReturn(MediaType.parse(IMAGE_TYPE));
+		doAnswer(i -> {
+			BufferedSink sink = i.getArgument(0);
+			sink.write(image);
+			return null;
+		}).when(requestBody).writeTo(any(BufferedSink.class));
+		AttachmentDeduplicator deduplicator = new AttachmentDeduplicator();
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setAttachmentDeduplicator(
+				deduplicator);
+
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> first = runChainComplexMessageCapture(
+				request,
+				createBasicResponse(null),
+				interceptor
+		);
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> second = runChainComplexMessageCapture(
+				request,
+				createBasicResponse(null),
+				interceptor
+		);
+
+		assertThat(first.getRight(), hasSize(1));
+		assertThat(first.getRight().get(0).getData().read(), equalTo(image));
+		assertThat(second.getRight(), hasSize(0));
+		assertThat(second.getMiddle(), hasSize(2));
+		assertThat(
+				second.getMiddle().get(0),
+				equalTo(EMPTY_REQUEST + "\n\n" + String.format(
+						AttachmentDeduplicator.DUPLICATE_ATTACHMENT,
+						image.length,
+						ByteString.of(image).sha256().hex()
+				))
+		);
+		assertThat(deduplicator.getDuplicates(), equalTo(1L));
+		assertThat(deduplicator.getSavedBytes(), equalTo((long) image.length));
+	}
+
+	@Test
+	public void test_dropped_binary_body_attached_again() throws IOException, InterruptedException {
+		byte[] image = getResource(IMAGE);
+		Request request = mockBasicRequest(IMAGE_TYPE);
+		RequestBody requestBody = mock(RequestBody.class);
+		when(request.body()).thenReturn(requestBody);
+		when(requestBody.contentType()).thenReturn(MediaType.parse(IMAGE_TYPE));
+		doAnswer(i -> {
+			BufferedSink sink = i.getArgument(0);
+			sink.write(image);
+			return null;
+		}).when(requestBody).writeTo(any(BufferedSink.class));
+		AttachmentDeduplicator deduplicator = new AttachmentDeduplicator();
+		AsyncLogEmitter emitter = new AsyncLogEmitter(1, 1, AsyncLogEmitter.OverflowPolicy.DROP);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		emitter.submit(() -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+		emitter.submit(() -> {});
+		try (MockedStatic<LoggingContext> utilities = Mockito.mockStatic(LoggingContext.class)) {
+			utilities.when(LoggingContext::context).thenReturn(mock(LoggingContext.class));
+			new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setAsyncEmitter(emitter)
+					.setAttachmentDeduplicator(deduplicator)
+					.intercept(getChain(request, createBasicResponse(null)));
+		} finally {
+			release.countDown();
+			emitter.close();
+		}
+
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> second = runChainComplexMessageCapture(
+				request,
+				createBasicResponse(null),
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setAttachmentDeduplicator(deduplicator)
+		);
+
+		// Both entries of the first call are dropped, so the body was never attached
+		assertThat(emitter.getDropped(), equalTo(2L));
+		assertThat(second.getRight(), hasSize(1));
+		assertThat(second.getRight().get(0).getData().read(), equalTo(image));
+		assertThat(deduplicator.getDuplicates(), equalTo(0L));
+	}
+
+	@Test
+	public void test_text_response_capture_limit() throws IOException {
+		String body = "0123456789";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		String result;
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class))).thenReturn(Boolean.TRUE);
+			Interceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setCaptureLimit(BodyType.TEXT, 5);
+			result = Objects.requireNonNull(interceptor.intercept(getChain(request, response)).body()).string();
+		}
+		assertThat(result, equalTo(body));
+		assertThat(logCapture.getAllValues(), hasSize(2));
+		assertThat(
+				logCapture.getAllValues().get(1),
+				equalTo(EMPTY_RESPONSE + "\n\n**Body**\n```\n01234\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, 5)
+						+ "\n```")
+		);
+	}
+
+	@Test
+	public void test_profile_handles_matching_route() throws IOException {
+		String body = "0123456789";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> levelCapture = ArgumentCaptor.forClass(String.class);
+		String result;
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), levelCapture.capture(), any(Instant.class)))
+					.thenReturn(Boolean.TRUE);
+			Interceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).addProfile(
+					RequestFilter.builder().host("other.local").build(),
+					new ReportPortalOkHttp3LoggingInterceptor(LogLevel.ERROR)
+			).addProfile(
+					RequestFilter.builder().host("docker.local").pathPrefix("/app").build(),
+					new ReportPortalOkHttp3LoggingInterceptor(LogLevel.DEBUG).setCaptureLimit(BodyType.TEXT, 5)
+			);
+			result = Objects.requireNonNull(interceptor.intercept(getChain(request, response)).body()).string();
+		}
+		assertThat(result, equalTo(body));
+		assertThat(levelCapture.getAllValues(), equalTo(Arrays.asList(LogLevel.DEBUG.name(), LogLevel.DEBUG.name())));
+		assertThat(
+				logCapture.getAllValues().get(1),
+				equalTo(EMPTY_RESPONSE + "\n\n**Body**\n```\n01234\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, 5)
+						+ "\n```")
+		);
+	}
+
+	@Test
+	public void test_profile_with_profiles_rejected() {
+		RequestFilter route = RequestFilter.builder().host("docker.local").build();
+		ReportPortalOkHttp3LoggingInterceptor first = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO);
+		ReportPortalOkHttp3LoggingInterceptor second = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.DEBUG);
+		first.addProfile(route, second);
+
+		assertThrows(IllegalArgumentException.class, () -> second.addProfile(route, first));
+		assertThrows(IllegalArgumentException.class, () -> first.addProfile(route, first));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_async_emission_binds_entries_to_calling_context() throws IOException {
+		String body = "test_body";
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				ContentType.TEXT_PLAIN,
+				new Headers.Builder().build(),
+				ResponseBody.create(body, MediaType.parse(ContentType.TEXT_PLAIN))
+		);
+		LoggingContext context = mock(LoggingContext.class);
+		ArgumentCaptor<Function<String, SaveLogRQ>> logCapture = ArgumentCaptor.forClass(Function.class);
+		AsyncLogEmitter emitter = new AsyncLogEmitter(2, 10, AsyncLogEmitter.OverflowPolicy.BLOCK);
+		try (MockedStatic<LoggingContext> utilities = Mockito.mockStatic(LoggingContext.class)) {
+			utilities.when(LoggingContext::context).thenReturn(context);
+			Interceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setAsyncEmitter(emitter);
+			assertThat(Objects.requireNonNull(interceptor.intercept(getChain(request, response)).body()).string(), equalTo(body));
+		}
+		emitter.close();
+
+		verify(context, times(2)).emit(logCapture.capture());
+		List<SaveLogRQ> logs = logCapture.getAllValues().stream().map(f -> f.apply("item")).collect(Collectors.toList());
+		assertThat(logs.get(0).getItemUuid(), equalTo("item"));
+		assertThat(logs.get(0).getLevel(), equalTo(LogLevel.INFO.name()));
+		assertThat(logs.get(0).getMessage(), equalTo(EMPTY_REQUEST));
+		assertThat(logs.get(1).getMessage(), equalTo(EMPTY_RESPONSE + "\n\n**Body**\n```\n" + body + "\n```"));
+		assertThat(emitter.getDropped(), equalTo(0L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test_enqueued_calls_logged_to_creating_context() throws InterruptedException {
+		int threads = 8;
+		int callsPerThread = 50;
+		ReportPortalOkHttp3EventListenerFactory calls = new ReportPortalOkHttp3EventListenerFactory();
+		AsyncLogEmitter emitter = new AsyncLogEmitter(4, 100, AsyncLogEmitter.OverflowPolicy.BLOCK);
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(threads * callsPerThread);
+		dispatcher.setMaxRequestsPerHost(threads * callsPerThread);
+		OkHttpClient client = new OkHttpClient.Builder().dispatcher(dispatcher)
+				.eventListenerFactory(calls)
+				.addInterceptor(new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setEventListenerFactory(calls)
+						.setAsyncEmitter(emitter))
+				.addInterceptor(chain -> new Response.Builder().request(chain.request())
+						.protocol(Protocol.HTTP_1_1)
+						.code(200)
+						.message("OK")
+						.body(ResponseBody.create(chain.request().url().encodedPath(), MediaType.parse(ContentType.TEXT_PLAIN)))
+						.build())
+				.build();
+
+		List<LoggingContext> contexts = new ArrayList<>();
+		Map<LoggingContext, Queue<Function<String, SaveLogRQ>>> logs = new ConcurrentHashMap<>();
+		Set<String> emittingThreads = ConcurrentHashMap.newKeySet();
+		for (int i = 0; i < threads; i++) {
+			LoggingContext context = mock(LoggingContext.class);
+			Queue<Function<String, SaveLogRQ>> contextLogs = new ConcurrentLinkedQueue<>();
+			doAnswer(invocation -> {
+				emittingThreads.add(Thread.currentThread().getName());
+				contextLogs.add(invocation.getArgument(0));
+				return null;
+			}).when(context).emit(any(Function.class));
+			contexts.add(context);
+			logs.put(context, contextLogs);
+		}
+
+		CountDownLatch finished = new CountDownLatch(threads * callsPerThread);
+		Queue<String> bodies = new ConcurrentLinkedQueue<>();
+		Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		Callback callback = new Callback() {
+			@Override
+			public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException {
+				try (ResponseBody body = response.body()) {
+					bodies.add(Objects.requireNonNull(body).string());
+				} finally {
+					finished.countDown();
+				}
+			}
+
+			@Override
+			public void onFailure(@NotNull Call call, @NotNull IOException e) {
+				failures.add(e);
+				finished.countDown();
+			}
+		};
+		List<Thread> callers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			int thread = i;
+			callers.add(new Thread(() -> {
+				try (MockedStatic<LoggingContext> utilities = Mockito.mockStatic(LoggingContext.class)) {
+					utilities.when(LoggingContext::context).thenReturn(contexts.get(thread));
+					for (int j = 0; j < callsPerThread; j++) {
+						client.newCall(new Request.Builder().url("http://localhost/thread/" + thread + "/call/" + j).build())
+								.enqueue(callback);
+					}
+				} catch (Throwable t) {
+					failures.add(t);
+				}
+			}));
+		}
+		callers.forEach(Thread::start);
+		for (Thread caller : callers) {
+			caller.join();
+		}
+		assertThat(finished.await(30, TimeUnit.SECONDS), equalTo(Boolean.TRUE));
+		emitter.close();
+		dispatcher.executorService().shutdown();
+
+		assertThat(failures, hasSize(0));
+		assertThat(bodies, hasSize(threads * callsPerThread));
+		assertThat(emitter.getDropped(), equalTo(0L));
+		assertThat(calls.size(), equalTo(0));
+		for (int i = 0; i < threads; i++) {
+			List<SaveLogRQ> contextLogs = logs.get(contexts.get(i))
+					.stream()
+					.map(f -> f.apply("item"))
+					.collect(Collectors.toList());
+			assertThat(contextLogs, hasSize(2 * callsPerThread));
+			for (SaveLogRQ log : contextLogs) {
+				assertThat(log.getMessage(), containsString("/thread/" + i + "/call/"));
+			}
+		}
+		assertThat(emittingThreads, everyItem(startsWith("rp-okhttp3-logger-")));
+	}
+
+	@Test
+	public void test_request_body_serialized_once() throws IOException {
+		String body = "test_body";
+		RequestBody requestBody = mock(RequestBody.class);
+		doAnswer(i -> {
+			BufferedSink sink = i.getArgument(0);
+			sink.writeString(body, StandardCharsets.UTF_8);
+			return null;
+		}).when(requestBody).writeTo(any());
+		Request request = mockBasicRequest(ContentType.TEXT_PLAIN, new Headers.Builder().build(), requestBody);
+
+		List<String> logs = runChainTextMessageCapture(request, createBasicResponse(null));
+		assertThat(logs, hasSize(2)); // Request + Response
+		assertThat(logs.get(0), equalTo(EMPTY_REQUEST + "\n\n**Body**\n```\n" + body + "\n```"));
+		verify(requestBody, times(1)).writeTo(any());
+	}
+
+	@Test
+	public void test_sampled_out_call_is_not_logged() throws IOException {
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				mockBasicRequest(HTML_TYPE),
+				createBasicResponse(HTML_TYPE),
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setSamplingPolicy(SamplingPolicy.ratio(0))
+		);
+		assertThat(logs.getMiddle(), hasSize(0));
+		assertThat(logs.getRight(), hasSize(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 200, 500 })
+	public void test_sampled_out_call_is_logged_on_failure(int code) throws IOException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(null).newBuilder().code(code).build();
+		InMemoryInterceptorMetrics metrics = new InMemoryInterceptorMetrics();
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				response,
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setSamplingPolicy(SamplingPolicy.ratio(0))
+						.setAlwaysLogFailures(true)
+						.setMetrics(metrics)
+		);
+		if (code == 200) {
+			assertThat(logs.getMiddle(), hasSize(0));
+			assertThat(metrics.getSkipped(InterceptorMetrics.SkipReason.SAMPLING), equalTo(1L));
+		} else {
+			assertThat(logs.getMiddle(), hasSize(2));
+			assertThat(logs.getMiddle().get(0), equalTo(EMPTY_REQUEST));
+			assertThat(logs.getMiddle().get(1), equalTo("**<<< RESPONSE**\n" + code));
+			assertThat(metrics.getSkipped(InterceptorMetrics.SkipReason.SAMPLING), equalTo(0L));
+		}
+		assertThat(metrics.getSkipped(InterceptorMetrics.SkipReason.RESPONSE_FILTER), equalTo(0L));
+	}
+
+	@Test
+	public void test_rate_limit_sampling() {
+		SamplingPolicy policy = SamplingPolicy.rateLimit(0.001, 2);
+		Request request = mockBasicRequest(null);
+		assertThat(policy.sample(request), equalTo(Boolean.TRUE));
+		assertThat(policy.sample(request), equalTo(Boolean.TRUE));
+		assertThat(policy.sample(request), equalTo(Boolean.FALSE));
+	}
+
+	@Test
+	public void test_interceptor_metrics() throws IOException {
+		String body = "0123456789";
+		RequestBody requestBody = mock(RequestBody.class);
+		doAnswer(i -> {
+			BufferedSink sink = i.getArgument(0);
+			sink.writeString(body, StandardCharsets.UTF_8);
+			return null;
+		}).when(requestBody).writeTo(any());
+		Request request = mockBasicRequest(ContentType.TEXT_PLAIN, new Headers.Builder().build(), requestBody);
+		InMemoryInterceptorMetrics metrics = new InMemoryInterceptorMetrics();
+		ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setCaptureLimit(
+				BodyType.TEXT,
+				4
+		).setMetrics(metrics);
+
+		runChainComplexMessageCapture(request, createBasicResponse(null), interceptor);
+		runChainComplexMessageCapture(request, createBasicResponse(null), interceptor.addRequestFilter(r -> true));
+
+		assertThat(metrics.getTimings(InterceptorMetrics.Phase.REQUEST_FORMATTING).getCount(), equalTo(1L));
+		assertThat(metrics.getTimings(InterceptorMetrics.Phase.RESPONSE_FORMATTING).getCount(), equalTo(1L));
+		assertThat(metrics.getTimings(InterceptorMetrics.Phase.EMISSION).getCount(), equalTo(2L));
+		assertThat(metrics.getCapturedBytes(), equalTo(4L));
+		assertThat(metrics.getOmittedBytes(), equalTo(6L));
+		assertThat(metrics.getTruncations(), equalTo(1L));
+		assertThat(metrics.getSkipped(InterceptorMetrics.SkipReason.FILTER), equalTo(1L));
+		assertThat(metrics.getSkipped(InterceptorMetrics.SkipReason.SAMPLING), equalTo(0L));
+	}
+
+	@Test
+	public void test_response_filter() throws IOException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				createBasicResponse(null),
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).addResponseFilter(ResponseFilters.statusIn(STATUS_CODE))
+		);
+		assertThat(logs.getMiddle(), hasSize(1));
+		assertThat(logs.getMiddle().get(0), equalTo(EMPTY_REQUEST));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { STATUS_CODE, 404 })
+	public void test_log_failures_only(int code) throws IOException {
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(null).newBuilder().code(code).build();
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				response,
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setLogFailuresOnly(true)
+		);
+		if (code == STATUS_CODE) {
+			assertThat(logs.getMiddle(), hasSize(0));
+		} else {
+			assertThat(logs.getMiddle(), hasSize(2));
+			assertThat(logs.getMiddle().get(0), equalTo(EMPTY_REQUEST));
+		}
+	}
+
+	@Test
+	public void test_log_failures_only_transport_failure() throws IOException {
+		Request request = new Request.Builder().url(URI)
+				.post(RequestBody.create("payload", MediaType.parse(ContentType.TEXT_PLAIN)))
+				.build();
+		IOException failure = new IOException("Connection reset");
+		Interceptor.Chain chain = mock(Interceptor.Chain.class);
+		when(chain.request()).thenReturn(request);
+		when(chain.call()).thenReturn(mock(Call.class));
+		when(chain.proceed(any(Request.class))).thenAnswer(invocation -> {
+			try (Buffer wire = new Buffer()) {
+				Objects.requireNonNull(invocation.<Request>getArgument(0).body()).writeTo(wire);
+			}
+			throw failure;
+		});
+		ArgumentCaptor<String> logCapture = ArgumentCaptor.forClass(String.class);
+		try (MockedStatic<ReportPortal> utilities = Mockito.mockStatic(ReportPortal.class)) {
+			utilities.when(() -> ReportPortal.emitLog(logCapture.capture(), anyString(), any(Instant.class)))
+					.thenReturn(Boolean.TRUE);
+			ReportPortalOkHttp3LoggingInterceptor interceptor = new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO)
+					.setLogFailuresOnly(true);
+			IOException thrown = assertThrows(IOException.class, () -> interceptor.intercept(chain));
+			assertThat(thrown, sameInstance(failure));
+		}
+
+		List<String> logs = logCapture.getAllValues();
+		assertThat(logs, hasSize(2));
+		assertThat(logs.get(0), startsWith(EMPTY_REQUEST));
+		assertThat(logs.get(0), containsString("payload"));
+		assertThat(logs.get(1), equalTo(ReportPortalOkHttp3LoggingInterceptor.NO_RESPONSE_TAG + "\n" + failure));
+	}
+
+	@Test
+	public void test_spilled_binary_response_attachment() throws IOException {
+		byte[] image = getResource(IMAGE);
+		Request request = mockBasicRequest(null);
+		when(request.body()).thenReturn(null);
+		Response response = createBasicResponse(
+				IMAGE_TYPE,
+				new Headers.Builder().build(),
+				ResponseBody.create(image, MediaType.parse(IMAGE_TYPE))
+		);
+		Triple<List<String>, List<String>, List<ReportPortalMessage>> logs = runChainComplexMessageCapture(
+				request,
+				response,
+				new ReportPortalOkHttp3LoggingInterceptor(LogLevel.INFO).setSpillThreshold(1024)
+		);
+		assertThat(logs.getRight(), hasSize(1));
+		assertThat(logs.getRight().get(0).getMessage(), equalTo(EMPTY_RESPONSE));
+		assertThat(logs.getRight().get(0).getData().getMediaType(), equalTo(IMAGE_TYPE));
+		assertThat(logs.getRight().get(0).getData().read(), equalTo(image));
+	}
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsyncLogEmitterTest {
+
+	private static Runnable await(CountDownLatch started, CountDownLatch release) {
+		return () -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	@Test
+	public void test_dropped_task_discarded() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executed = new AtomicInteger();
+		AtomicInteger discarded = new AtomicInteger();
+		try (AsyncLogEmitter emitter = new AsyncLogEmitter(1, 1, AsyncLogEmitter.OverflowPolicy.DROP)) {
+			emitter.submit(await(started, release));
+			assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+			emitter.submit(executed::incrementAndGet, discarded::incrementAndGet);
+			emitter.submit(executed::incrementAndGet, discarded::incrementAndGet);
+
+			assertThat(emitter.getDropped(), equalTo(1L));
+			assertThat(discarded.get(), equalTo(1));
+			release.countDown();
+		}
+		assertThat(executed.get(), equalTo(1));
+		assertThat(discarded.get(), equalTo(1));
+	}
+
+	@Test
+	public void test_tasks_left_after_shutdown_timeout_discarded() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executed = new AtomicInteger();
+		AtomicInteger discarded = new AtomicInteger();
+		AsyncLogEmitter emitter = new AsyncLogEmitter(1, 10, AsyncLogEmitter.OverflowPolicy.BLOCK, 100);
+		try {
+			emitter.submit(await(started, release));
+			assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+			emitter.submit(executed::incrementAndGet, discarded::incrementAndGet);
+			emitter.submit(executed::incrementAndGet, discarded::incrementAndGet);
+			emitter.close();
+		} finally {
+			release.countDown();
+		}
+
+		assertThat(executed.get(), equalTo(0));
+		assertThat(discarded.get(), equalTo(2));
+		assertThat(emitter.getDropped(), equalTo(2L));
+	}
+
+	@Test
+	public void test_blocked_submitter_released_on_close() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executed = new AtomicInteger();
+		AtomicInteger discarded = new AtomicInteger();
+		AsyncLogEmitter emitter = new AsyncLogEmitter(1, 1, AsyncLogEmitter.OverflowPolicy.BLOCK, 100);
+		Thread submitter;
+		try {
+			emitter.submit(await(started, release));
+			assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+			emitter.submit(executed::incrementAndGet, discarded::incrementAndGet);
+			submitter = new Thread(() -> emitter.submit(executed::incrementAndGet, discarded::incrementAndGet));
+			submitter.start();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (submitter.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			emitter.close();
+		} finally {
+			release.countDown();
+		}
+		submitter.join(TimeUnit.SECONDS.toMillis(10));
+
+		assertThat(submitter.isAlive(), equalTo(false));
+		// Every task is either executed or discarded, none is left in the closed emitter
+		assertThat(executed.get() + discarded.get(), equalTo(2));
+		assertThat(emitter.getQueueSize(), equalTo(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(longs = { 0, -1 })
+	public void test_shutdown_timeout_validated(long timeout) {
+		assertThrows(
+				IllegalArgumentException.class,
+				() -> new AsyncLogEmitter(1, 1, AsyncLogEmitter.OverflowPolicy.BLOCK, timeout)
+		);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class BodyCaptureTest {
+
+	private static final byte[] DATA = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+	private static void write(BodyCapture capture, byte[] data, int chunkSize) {
+		for (int i = 0; i < data.length; i += chunkSize) {
+			try (Buffer buffer = new Buffer()) {
+				buffer.write(data, i, Math.min(chunkSize, data.length - i));
+				capture.write(buffer, 0, buffer.size());
+			}
+		}
+	}
+
+	@Test
+	public void test_capture_limit() {
+		BodyCapture capture = new BodyCapture(5);
+		write(capture, DATA, 3);
+
+		assertThat(capture.getCaptured(), equalTo(5L));
+		assertThat(capture.getTotal(), equalTo((long) DATA.length));
+		assertThat(capture.getOmitted(), equalTo((long) DATA.length - 5));
+		assertThat(capture.isTruncated(), equalTo(Boolean.TRUE));
+		assertThat(capture.readByteArray(), equalTo(Arrays.copyOf(DATA, 5)));
+	}
+
+	@Test
+	public void test_capture_spill_to_file() {
+		BodyCapture capture = new BodyCapture(BodyCapture.UNLIMITED, 8);
+		write(capture, DATA, 3);
+
+		assertThat(capture.isSpilled(), equalTo(Boolean.TRUE));
+		Path file = Objects.requireNonNull(capture.getFile());
+		assertThat(Files.exists(file), equalTo(Boolean.TRUE));
+		assertThat(capture.readByteArray(), equalTo(DATA));
+		assertThat(Files.exists(file), equalTo(Boolean.FALSE));
+	}
+
+	@Test
+	public void test_capture_large_body_read_back() {
+		byte[] data = new byte[100 * 1024];
+		new Random(42).nextBytes(data);
+		BodyCapture capture = new BodyCapture(BodyCapture.UNLIMITED, 1024);
+		Buffer source = new Buffer().write(data);
+		for (long offset = 0; offset < data.length; offset += 8192) {
+			capture.write(source, offset, Math.min(8192, data.length - offset));
+		}
+
+		assertThat(source.readByteArray(), equalTo(data));
+		assertThat(capture.isSpilled(), equalTo(Boolean.TRUE));
+		Path file = Objects.requireNonNull(capture.getFile());
+		assertThat(capture.readByteArray(), equalTo(data));
+		assertThat(Files.exists(file), equalTo(Boolean.FALSE));
+	}
+
+	@Test
+	public void test_capture_close_deletes_file() {
+		BodyCapture capture = new BodyCapture(BodyCapture.UNLIMITED, 8);
+		write(capture, DATA, 10);
+		Path file = Objects.requireNonNull(capture.getFile());
+
+		capture.close();
+		assertThat(Files.exists(file), equalTo(Boolean.FALSE));
+		assertThat(capture.isSpilled(), equalTo(Boolean.FALSE));
+	}
+
+	@Test
+	public void test_capture_hashes_omitted_bytes() {
+		BodyCapture capture = new BodyCapture(0).hashing();
+		write(capture, DATA, 3);
+
+		assertThat(capture.getCaptured(), equalTo(0L));
+		assertThat(capture.getTotal(), equalTo((long) DATA.length));
+		assertThat(capture.getSha256(), equalTo(ByteString.of(DATA).sha256().hex()));
+	}
+
+	@Test
+	public void test_capture_kept_in_memory_if_spill_fails() {
+		BodyCapture capture = new BodyCapture(BodyCapture.UNLIMITED, 8) {
+			@Nonnull
+			@Override
+			protected Path createSpillFile() throws IOException {
+				throw new IOException("No space left on device");
+			}
+		};
+		write(capture, DATA, 3);
+
+		assertThat(capture.isSpilled(), equalTo(Boolean.FALSE));
+		assertThat(capture.isFailed(), equalTo(Boolean.FALSE));
+		assertThat(capture.getCaptured(), equalTo((long) DATA.length));
+		assertThat(capture.isTruncated(), equalTo(Boolean.FALSE));
+		assertThat(capture.readByteArray(), equalTo(DATA));
+	}
+}
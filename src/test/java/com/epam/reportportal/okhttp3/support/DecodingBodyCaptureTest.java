@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class DecodingBodyCaptureTest {
+
+	private static final String TEXT = new String(new char[5000]).replace("\0", "{\"key\": \"value\"}\n");
+
+	private static ByteString gzip(String text) throws IOException {
+		Buffer result = new Buffer();
+		try (BufferedSink sink = Okio.buffer(new GzipSink(result))) {
+			sink.writeUtf8(text);
+		}
+		return result.readByteString();
+	}
+
+	private static ByteString deflate(String text, boolean raw) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+		deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+		deflater.finish();
+		Buffer result = new Buffer();
+		byte[] chunk = new byte[1024];
+		while (!deflater.finished()) {
+			result.write(chunk, 0, deflater.deflate(chunk));
+		}
+		deflater.end();
+		return result.readByteString();
+	}
+
+	private static void write(BodyCapture capture, ByteString data, int chunkSize) {
+		Buffer source = new Buffer().write(data);
+		for (long offset = 0; offset < data.size(); offset += chunkSize) {
+			capture.write(source, offset, Math.min(chunkSize, data.size() - offset));
+		}
+		assertThat(source.readByteString(), equalTo(data));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 7, 8192 })
+	public void test_gzip_body_decoded(int chunkSize) throws IOException {
+		DecodingBodyCapture capture = new DecodingBodyCapture("gzip", BodyCapture.UNLIMITED, BodyCapture.UNLIMITED);
+		write(capture, gzip(TEXT), chunkSize);
+
+		assertThat(capture.isTruncated(), equalTo(false));
+		assertThat(capture.readString(StandardCharsets.UTF_8), equalTo(TEXT));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 7, 8192 })
+	public void test_concatenated_gzip_members_decoded(int chunkSize) throws IOException {
+		DecodingBodyCapture capture = new DecodingBodyCapture("gzip", BodyCapture.UNLIMITED, BodyCapture.UNLIMITED);
+		ByteString data = new Buffer().write(gzip(TEXT)).write(gzip("tail")).readByteString();
+		write(capture, data, chunkSize);
+
+		assertThat(capture.isTruncated(), equalTo(false));
+		assertThat(capture.readString(StandardCharsets.UTF_8), equalTo(TEXT + "tail"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	public void test_deflate_body_decoded(boolean raw) {
+		DecodingBodyCapture capture = new DecodingBodyCapture("deflate", BodyCapture.UNLIMITED, BodyCapture.UNLIMITED);
+		write(capture, deflate(TEXT, raw), 100);
+
+		assertThat(capture.readString(StandardCharsets.UTF_8), equalTo(TEXT));
+	}
+
+	@Test
+	public void test_decoded_body_spilled_to_file() throws IOException {
+		DecodingBodyCapture capture = new DecodingBodyCapture("gzip", BodyCapture.UNLIMITED, 1024);
+		write(capture, gzip(TEXT), 100);
+
+		assertThat(capture.isSpilled(), equalTo(true));
+		assertThat(capture.getCaptured(), equalTo((long) TEXT.length()));
+		assertThat(new String(capture.readByteArray(), StandardCharsets.UTF_8), equalTo(TEXT));
+	}
+
+	@Test
+	public void test_decoding_stops_at_capture_limit() throws IOException {
+		ByteString encoded = gzip(TEXT);
+		DecodingBodyCapture capture = new DecodingBodyCapture("GZIP", 100, BodyCapture.UNLIMITED);
+		write(capture, encoded, 64);
+
+		assertThat(capture.isTruncated(), equalTo(true));
+		assertThat(capture.getEncodedTotal(), equalTo((long) encoded.size()));
+		assertThat(capture.getTruncationMarker().endsWith("encoded bytes omitted]"), equalTo(true));
+		assertThat(capture.readString(StandardCharsets.UTF_8), equalTo(TEXT.substring(0, 100)));
+	}
+
+	@Test
+	public void test_hash_covers_encoded_body_past_capture_limit() throws IOException {
+		ByteString first = gzip(TEXT + "first");
+		ByteString second = gzip(TEXT + "second");
+		DecodingBodyCapture firstCapture = new DecodingBodyCapture("gzip", 100, BodyCapture.UNLIMITED);
+		firstCapture.hashing();
+		write(firstCapture, first, 64);
+		DecodingBodyCapture secondCapture = new DecodingBodyCapture("gzip", 100, BodyCapture.UNLIMITED);
+		secondCapture.hashing();
+		write(secondCapture, second, 64);
+
+		assertThat(firstCapture.getSha256(), equalTo(first.sha256().hex()));
+		assertThat(secondCapture.getSha256(), equalTo(second.sha256().hex()));
+		assertThat(firstCapture.getEncodedTotal(), equalTo((long) first.size()));
+	}
+
+	@Test
+	public void test_corrupted_body_does_not_fail() {
+		DecodingBodyCapture capture = new DecodingBodyCapture("gzip", BodyCapture.UNLIMITED, BodyCapture.UNLIMITED);
+		ByteString data = ByteString.encodeUtf8(TEXT);
+		write(capture, data, 1000);
+
+		assertThat(capture.isTruncated(), equalTo(true));
+		assertThat(
+				capture.getTruncationMarker(),
+				equalTo(String.format(DecodingBodyCapture.ENCODED_TRUNCATION_MARKER, data.size()))
+		);
+		assertThat(capture.readString(StandardCharsets.UTF_8), equalTo(""));
+	}
+}
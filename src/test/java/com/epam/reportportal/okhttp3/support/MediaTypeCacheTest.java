@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import com.epam.reportportal.formatting.http.entities.BodyType;
+import okhttp3.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MediaTypeCacheTest {
+
+	private static final String JSON_TYPE = "application/json";
+	private static final Map<String, BodyType> BODY_TYPES = Collections.singletonMap(JSON_TYPE, BodyType.TEXT);
+
+	@Test
+	public void test_media_type_resolved_once() {
+		MediaTypeCache cache = new MediaTypeCache(BODY_TYPES);
+		MediaTypeCache.Resolved resolved = cache.resolve(MediaType.get("application/json; charset=ISO-8859-1"));
+
+		assertThat(resolved.getMimeType(), equalTo(JSON_TYPE));
+		assertThat(resolved.getBodyType(), equalTo(BodyType.TEXT));
+		assertThat(resolved.getCharset(), equalTo(StandardCharsets.ISO_8859_1));
+		assertThat(cache.resolve(MediaType.get("application/json; charset=ISO-8859-1")), sameInstance(resolved));
+		assertThat(cache.size(), equalTo(1));
+	}
+
+	@Test
+	public void test_charset_defaults_to_utf8() {
+		MediaTypeCache.Resolved resolved = new MediaTypeCache(BODY_TYPES).resolve(MediaType.get(JSON_TYPE));
+
+		assertThat(resolved.getDeclaredCharset(), nullValue());
+		assertThat(resolved.getCharset(), equalTo(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void test_multipart_boundaries_are_not_cached() {
+		MediaTypeCache cache = new MediaTypeCache(BODY_TYPES);
+		cache.resolve(MediaType.get("multipart/form-data; boundary=first"));
+		cache.resolve(MediaType.get("multipart/form-data; boundary=second"));
+
+		assertThat(cache.size(), equalTo(0));
+	}
+
+	@Test
+	public void test_null_media_type_not_cached() {
+		MediaTypeCache cache = new MediaTypeCache(BODY_TYPES);
+
+		assertThat(cache.resolve(null), sameInstance(cache.resolve(null)));
+		assertThat(cache.size(), equalTo(0));
+	}
+
+	@Test
+	public void test_uncached_resolution_matches_cached() {
+		MediaType mediaType = MediaType.get("application/json; charset=ISO-8859-1");
+		MediaTypeCache.Resolved cached = new MediaTypeCache(BODY_TYPES).resolve(mediaType);
+		MediaTypeCache.Resolved direct = MediaTypeCache.resolve(mediaType, BODY_TYPES);
+
+		assertThat(direct.getMimeType(), equalTo(cached.getMimeType()));
+		assertThat(direct.getBodyType(), equalTo(cached.getBodyType()));
+		assertThat(direct.getDeclaredCharset(), equalTo(cached.getDeclaredCharset()));
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class PrettifierCacheTest {
+
+	private static final String JSON_TYPE = "application/json";
+
+	@Test
+	public void test_repeated_payload_is_prettified_once() {
+		AtomicInteger calls = new AtomicInteger();
+		PrettifierCache cache = new PrettifierCache(1024 * 1024);
+		Function<String, String> prettifier = cache.wrap(JSON_TYPE, body -> {
+			calls.incrementAndGet();
+			return body.toUpperCase();
+		});
+
+		assertThat(prettifier.apply("{\"key\": \"value\"}"), equalTo("{\"KEY\": \"VALUE\"}"));
+		assertThat(prettifier.apply("{\"key\": \"value\"}"), equalTo("{\"KEY\": \"VALUE\"}"));
+		assertThat(prettifier.apply("{\"key\": \"other\"}"), equalTo("{\"KEY\": \"OTHER\"}"));
+
+		assertThat(calls.get(), equalTo(2));
+		assertThat(cache.getHits(), equalTo(1L));
+		assertThat(cache.getMisses(), equalTo(2L));
+		assertThat(cache.getCount(), equalTo(2));
+	}
+
+	@Test
+	public void test_long_payloads_keyed_by_whole_body() {
+		String head = new String(new char[3000]).replace('\0', '\u044f');
+		PrettifierCache cache = new PrettifierCache(1024 * 1024);
+		Function<String, String> prettifier = cache.wrap(JSON_TYPE, Function.identity());
+
+		assertThat(prettifier.apply(head + 1), equalTo(head + 1));
+		assertThat(prettifier.apply(head + 2), equalTo(head + 2));
+		assertThat(prettifier.apply(head + 1), equalTo(head + 1));
+
+		assertThat(cache.getMisses(), equalTo(2L));
+		assertThat(cache.getHits(), equalTo(1L));
+	}
+
+	@Test
+	public void test_least_recently_used_entries_evicted() {
+		String body = new String(new char[100]).replace('\0', 'a');
+		long entrySize = 2L * (body.length() + 1) + 160;
+		PrettifierCache cache = new PrettifierCache(3 * entrySize);
+		Function<String, String> prettifier = cache.wrap(JSON_TYPE, Function.identity());
+
+		prettifier.apply(body + 1);
+		prettifier.apply(body + 2);
+		prettifier.apply(body + 3);
+		prettifier.apply(body + 1);
+		prettifier.apply(body + 4);
+		assertThat(cache.getCount(), equalTo(3));
+		assertThat(cache.getSize(), lessThanOrEqualTo(3 * entrySize));
+
+		prettifier.apply(body + 1);
+		assertThat(cache.getHits(), equalTo(2L));
+		prettifier.apply(body + 2);
+		assertThat(cache.getMisses(), equalTo(5L));
+	}
+
+	@Test
+	public void test_wrapped_map_is_reused() {
+		PrettifierCache cache = new PrettifierCache(1024);
+		Map<String, Function<String, String>> prettifiers = Collections.singletonMap(JSON_TYPE, Function.identity());
+
+		Map<String, Function<String, String>> wrapped = cache.wrap(prettifiers);
+		assertThat(cache.wrap(prettifiers), sameInstance(wrapped));
+		assertThat(wrapped.keySet(), equalTo(prettifiers.keySet()));
+	}
+
+	@Test
+	public void test_map_changed_in_place_is_wrapped_again() {
+		PrettifierCache cache = new PrettifierCache(1024);
+		Map<String, Function<String, String>> prettifiers = new HashMap<>();
+		prettifiers.put(JSON_TYPE, Function.identity());
+		Map<String, Function<String, String>> wrapped = cache.wrap(prettifiers);
+
+		prettifiers.put(JSON_TYPE, String::toUpperCase);
+		Map<String, Function<String, String>> rewrapped = cache.wrap(prettifiers);
+		assertThat(rewrapped, not(sameInstance(wrapped)));
+		assertThat(rewrapped.get(JSON_TYPE).apply("body"), equalTo("BODY"));
+
+		prettifiers.put("application/xml", Function.identity());
+		assertThat(cache.wrap(prettifiers).keySet(), equalTo(prettifiers.keySet()));
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class PrettifierGuardTest {
+
+	private static final String BODY = "{\"key\": \"value\"}";
+
+	@Test
+	public void test_oversized_body_logged_raw() {
+		try (PrettifierGuard guard = new PrettifierGuard(BODY.length())) {
+			Function<String, String> prettifier = guard.wrap(String::toUpperCase);
+
+			assertThat(prettifier.apply(BODY), equalTo(BODY.toUpperCase()));
+			assertThat(prettifier.apply(BODY + " "), equalTo(BODY + " "));
+			assertThat(guard.getSkipped(), equalTo(1L));
+		}
+	}
+
+	@Test
+	public void test_slow_prettifier_logged_raw() {
+		CountDownLatch release = new CountDownLatch(1);
+		try (PrettifierGuard guard = new PrettifierGuard(PrettifierGuard.UNLIMITED_SIZE, 100)) {
+			Function<String, String> prettifier = guard.wrap(body -> {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ignore) {
+				}
+				return body.toUpperCase();
+			});
+
+			long start = System.nanoTime();
+			assertThat(prettifier.apply(BODY), equalTo(BODY));
+			assertThat(System.nanoTime() - start, lessThan(TimeUnit.SECONDS.toNanos(5)));
+			assertThat(guard.getTimedOut(), equalTo(1L));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void test_saturated_guard_logs_raw() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (PrettifierGuard guard = new PrettifierGuard(PrettifierGuard.UNLIMITED_SIZE, 100, 1)) {
+			Function<String, String> stuck = guard.wrap(body -> {
+				started.countDown();
+				// Ignores interruption, so the thread stays busy after the timeout
+				while (true) {
+					try {
+						if (release.await(10, TimeUnit.SECONDS)) {
+							return body;
+						}
+					} catch (InterruptedException ignore) {
+					}
+				}
+			});
+			Function<String, String> fast = guard.wrap(String::toUpperCase);
+
+			assertThat(stuck.apply(BODY), equalTo(BODY));
+			assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+			assertThat(fast.apply(BODY), equalTo(BODY));
+			assertThat(guard.getTimedOut(), equalTo(1L));
+			assertThat(guard.getRejected(), equalTo(1L));
+
+			release.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			String result = fast.apply(BODY);
+			while (!BODY.toUpperCase().equals(result) && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+				result = fast.apply(BODY);
+			}
+			assertThat(result, equalTo(BODY.toUpperCase()));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void test_failed_prettifier_logged_raw() {
+		try (PrettifierGuard guard = new PrettifierGuard(PrettifierGuard.UNLIMITED_SIZE, 1000)) {
+			Function<String, String> prettifier = guard.wrap(body -> {
+				throw new IllegalArgumentException("Invalid JSON");
+			});
+
+			assertThat(prettifier.apply(BODY), equalTo(BODY));
+			assertThat(guard.getFailed(), equalTo(1L));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RequestMatcherTest {
+
+	private static final List<RequestFilter> FILTERS = Arrays.asList(
+			RequestFilter.builder().host("api.example.com").pathPrefix("/health").build(),
+			RequestFilter.builder().host("*.cdn.example.com").pathGlob("/static/**/*.png").build(),
+			RequestFilter.builder().pathGlob("/v?/users/*/avatar").method("get").build(),
+			RequestFilter.builder().pathPrefix("/").header("X-No-Log").build()
+	);
+
+	private static Request request(String method, String url) {
+		return new Request.Builder().url(url).method(method, "GET".equals(method) ? null : RequestBody.create(new byte[0]))
+				.build();
+	}
+
+	public static Stream<Arguments> requests() {
+		return Stream.of(
+				Arguments.of(request("GET", "https://api.example.com/health"), true),
+				Arguments.of(request("POST", "https://api.example.com/health/live/"), true),
+				Arguments.of(request("GET", "https://api.example.com/healthz"), false),
+				Arguments.of(request("GET", "https://other.example.com/health"), false),
+				Arguments.of(request("GET", "https://eu.cdn.example.com/static/logo.png"), true),
+				Arguments.of(request("GET", "https://eu.cdn.example.com/static/img/2022/logo.png"), true),
+				Arguments.of(request("GET", "https://eu.cdn.example.com/static/logo.jpg"), false),
+				Arguments.of(request("GET", "https://cdn.example.com/static/logo.png"), false),
+				Arguments.of(request("GET", "https://any.host/v1/users/42/avatar"), true),
+				Arguments.of(request("PUT", "https://any.host/v1/users/42/avatar"), false),
+				Arguments.of(request("GET", "https://any.host/v10/users/42/avatar"), false),
+				Arguments.of(request("GET", "https://any.host/v1/users/42/avatar/large"), false)
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("requests")
+	public void test_declarative_filters(Request request, boolean expected) {
+		RequestMatcher matcher = RequestMatcher.compile(FILTERS, Collections.emptyList());
+
+		assertThat(matcher.matches(request), equalTo(expected));
+		assertThat(FILTERS.stream().anyMatch(f -> f.test(request)), equalTo(expected));
+	}
+
+	@Test
+	public void test_header_presence() {
+		RequestMatcher matcher = RequestMatcher.compile(FILTERS, Collections.emptyList());
+		Request request = request("GET", "https://any.host/any/path");
+
+		assertThat(matcher.matches(request), equalTo(false));
+		assertThat(matcher.matches(request.newBuilder().header("X-No-Log", "true").build()), equalTo(true));
+	}
+
+	@Test
+	public void test_predicates_fallback() {
+		Predicate<Request> predicate = r -> r.url().queryParameter("debug") != null;
+		RequestMatcher matcher = RequestMatcher.compile(FILTERS, Collections.singletonList(predicate));
+
+		assertThat(matcher.matches(request("GET", "https://any.host/any/path")), equalTo(false));
+		assertThat(matcher.matches(request("GET", "https://any.host/any/path?debug=1")), equalTo(true));
+		assertThat(RequestMatcher.EMPTY.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void test_segment_glob() {
+		assertThat(RequestMatcher.globMatches("*.png", "logo.png"), equalTo(true));
+		assertThat(RequestMatcher.globMatches("*.png", "logo.png.jpg"), equalTo(false));
+		assertThat(RequestMatcher.globMatches("a*b*c", "aXXbYYbc"), equalTo(true));
+		assertThat(RequestMatcher.globMatches("v?", "v12"), equalTo(false));
+		assertThat(RequestMatcher.globMatches("*", ""), equalTo(true));
+	}
+}
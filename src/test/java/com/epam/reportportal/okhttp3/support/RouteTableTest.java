@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RouteTableTest {
+
+	private static final RouteTable<String> ROUTES = RouteTable.<String>empty()
+			.with(RequestFilter.builder().host("api.example.com").pathPrefix("/health").build(), "health")
+			.with(RequestFilter.builder().host("api.example.com").build(), "api")
+			.with(RequestFilter.builder().host("*.cdn.example.com").build(), "cdn")
+			.with(RequestFilter.builder().pathGlob("/data/**").method("GET").build(), "data");
+
+	private static Request request(String url) {
+		return new Request.Builder().url(url).build();
+	}
+
+	public static Stream<Arguments> requests() {
+		return Stream.of(
+				Arguments.of("https://api.example.com/health/live", "health"),
+				Arguments.of("https://API.example.com/healthz", "api"),
+				Arguments.of("https://api.example.com/data/1", "api"),
+				Arguments.of("https://eu.cdn.example.com/data/1", "cdn"),
+				Arguments.of("https://cdn.example.com/data/1", "data"),
+				Arguments.of("https://other.host/data/1/2", "data"),
+				Arguments.of("https://other.host/health", null)
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("requests")
+	public void test_first_matching_route_wins(String url, String expected) {
+		// Resolve twice to check cached host routes give the same result
+		assertThat(ROUTES.resolve(request(url)), equalTo(expected));
+		assertThat(ROUTES.resolve(request(url)), equalTo(expected));
+	}
+
+	@Test
+	public void test_empty_table_resolves_nothing() {
+		RouteTable<String> routes = RouteTable.empty();
+
+		assertThat(routes.isEmpty(), equalTo(true));
+		assertThat(routes.resolve(request("https://api.example.com/health")), nullValue());
+	}
+
+	@Test
+	public void test_new_route_does_not_change_table() {
+		RouteTable<String> routes = RouteTable.empty();
+		RouteTable<String> result = routes.with(RequestFilter.builder().build(), "any");
+
+		assertThat(routes.size(), equalTo(0));
+		assertThat(result.size(), equalTo(1));
+		assertThat(result.resolve(request("https://api.example.com/health")), equalTo("any"));
+	}
+}
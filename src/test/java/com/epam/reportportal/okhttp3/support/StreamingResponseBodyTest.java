@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Pipe;
+import okio.Source;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class StreamingResponseBodyTest {
+
+	private static final MediaType EVENT_STREAM = MediaType.get("text/event-stream");
+
+	@Test
+	public void test_event_without_delimiter_not_buffered_over_limit() throws IOException {
+		int eventSize = 1024 * 1024;
+		String data = "data: " + StringUtils.repeat('a', eventSize) + "\n\ndata: next\n\n";
+		List<String> events = new ArrayList<>();
+		StreamingResponseBody body = new StreamingResponseBody(
+				ResponseBody.create(data, EVENT_STREAM),
+				StreamingResponseBody.EVENT_DELIMITER,
+				10,
+				Long.MAX_VALUE,
+				16,
+				events::addAll
+		);
+		BufferedSource source = body.source();
+		Buffer sink = new Buffer();
+		long read = 0;
+		while (read < eventSize) {
+			read += source.read(sink, 8192);
+			sink.clear();
+			assertThat(body.getBufferedSize(), lessThanOrEqualTo(16L + 2));
+		}
+		source.readUtf8();
+		body.close();
+
+		assertThat(
+				events,
+				contains(
+						"data: aaaaaaaaaa\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, eventSize + 6 - 16),
+						"data: next"
+				)
+		);
+	}
+
+	@Test
+	public void test_delimiter_split_between_reads() throws IOException {
+		List<String> events = new ArrayList<>();
+		Buffer data = new Buffer().writeUtf8("data: first\n\r\ndata: second\n\n");
+		// Deliver the data byte by byte, so delimiters are split between reads
+		Source slow = new ForwardingSource(data) {
+			@Override
+			public long read(@Nonnull Buffer sink, long byteCount) throws IOException {
+				return super.read(sink, Math.min(byteCount, 1));
+			}
+		};
+		StreamingResponseBody body = new StreamingResponseBody(
+				ResponseBody.create(Okio.buffer(slow), EVENT_STREAM, data.size()),
+				StreamingResponseBody.EVENT_DELIMITER,
+				10,
+				Long.MAX_VALUE,
+				5,
+				events::addAll
+		);
+		BufferedSource source = body.source();
+		Buffer sink = new Buffer();
+		while (source.read(sink, 1) >= 0) {
+			assertThat(body.getBufferedSize(), lessThanOrEqualTo(5L + 2));
+		}
+		body.close();
+
+		assertThat(sink.readUtf8(), equalTo("data: first\n\r\ndata: second\n\n"));
+		assertThat(
+				events,
+				contains(
+						"data:\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, 6),
+						"data:\n" + String.format(HttpEntityFactory.TRUNCATION_MARKER, 7)
+				)
+		);
+	}
+
+	@Test
+	public void test_batch_handed_over_without_new_data() throws IOException, InterruptedException {
+		Pipe pipe = new Pipe(8192);
+		BufferedSink server = Okio.buffer(pipe.sink());
+		CountDownLatch handedOver = new CountDownLatch(1);
+		List<String> events = new CopyOnWriteArrayList<>();
+		StreamingResponseBody body = new StreamingResponseBody(
+				ResponseBody.create(Okio.buffer(pipe.source()), EVENT_STREAM, -1),
+				StreamingResponseBody.EVENT_DELIMITER,
+				10,
+				100,
+				1024,
+				batch -> {
+					events.addAll(batch);
+					handedOver.countDown();
+				}
+		);
+		server.writeUtf8("data: one\n\n").flush();
+		assertThat(body.source().read(new Buffer(), 8192), equalTo(11L));
+
+		// No more data arrives, the timer hands the batch over
+		assertThat(handedOver.await(10, TimeUnit.SECONDS), equalTo(true));
+		assertThat(events, contains("data: one"));
+
+		server.close();
+		body.close();
+		assertThat(events, contains("data: one"));
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.okhttp3.support;
+
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TextBodyDecoderTest {
+
+	// Two bytes per char in UTF-8, so chunk boundaries fall in the middle of chars
+	private static final String TEXT = new String(new char[10001]).replace('\0', 'я');
+
+	@Test
+	public void test_multibyte_chars_across_chunks() throws IOException {
+		Buffer source = new Buffer().writeUtf8(TEXT);
+		long size = source.size();
+
+		assertThat(TextBodyDecoder.decode(source, StandardCharsets.UTF_8, size), equalTo(TEXT));
+		assertThat(source.size(), equalTo(0L));
+	}
+
+	@Test
+	public void test_surrogate_pairs_with_understated_length() throws IOException {
+		String text = "\uD83D\uDE00\uD83D\uDE00";
+		Buffer source = new Buffer().writeUtf8(text);
+
+		assertThat(TextBodyDecoder.decode(source, StandardCharsets.UTF_8, 1), equalTo(text));
+	}
+
+	@Test
+	public void test_byte_order_mark_overrides_charset() throws IOException {
+		Buffer source = new Buffer().write(ByteString.decodeHex("feff")).writeString("text", StandardCharsets.UTF_16BE);
+
+		assertThat(TextBodyDecoder.decode(source, StandardCharsets.ISO_8859_1, -1), equalTo("text"));
+	}
+}